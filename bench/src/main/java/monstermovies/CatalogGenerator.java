@@ -0,0 +1,124 @@
+package monstermovies;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * CatalogGenerator builds synthetic movie catalogs for the benchmarks.
+ * The same size and seed always give the same catalog, so results of different runs and versions compare.
+ *
+ * <p>Movies hold MOVIE_SIZE characters each. Titles repeat for about one movie in eight, as remakes do,
+ * and names, subtypes and vulnerabilities are drawn from small vocabularies, so the title, year and
+ * character indexes all have buckets of realistic sizes.
+ */
+final class CatalogGenerator {
+
+    /**
+     * The seed used by the benchmarks.
+     */
+    static final long SEED = 20240917L;
+
+    /**
+     * The number of characters in each generated movie.
+     */
+    static final int MOVIE_SIZE = 10;
+
+    /**
+     * The first release year of the generated movies; they span FIRST_YEAR up to FIRST_YEAR + YEARS - 1.
+     */
+    static final int FIRST_YEAR = 1920;
+    static final int YEARS = 105;
+
+    /**
+     * The number of distinct character names.
+     */
+    static final int NAMES = 5000;
+
+    private static final String[] SUBTYPES = {
+            "vampire", "werewolf", "zombie", "ghost", "witch", "demon", "mummy", "human"
+    };
+    private static final String[] VULNERABILITIES = {
+            "sunlight", "silver", "fire", "garlic", "holy water", "salt", "decapitation", "iron", "humans", "none"
+    };
+
+    private CatalogGenerator() {
+    }
+
+    /**
+     * Generates a catalog.
+     *
+     * @param characters the total number of characters, rounded up to whole movies
+     * @param seed       the seed of the catalog
+     * @return a new collection holding the catalog
+     */
+    static MovieCollection generate(int characters, long seed) {
+        List<MonsterMovie> movies = generateMovies(characters, seed);
+        MovieCollection collection = new MovieCollection(movies.size());
+        collection.addMovies(movies);
+        return collection;
+    }
+
+    /**
+     * Generates the movies of a catalog without adding them to a collection.
+     *
+     * @param characters the total number of characters, rounded up to whole movies
+     * @param seed       the seed of the catalog
+     * @return the movies, in catalog order
+     */
+    static List<MonsterMovie> generateMovies(int characters, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        int movieCount = movieCount(characters);
+        List<MonsterMovie> movies = new ArrayList<>(movieCount);
+        for (int m = 0; m < movieCount; m++) {
+            // one movie in eight remakes an earlier title
+            int titleNumber = m > 0 && random.nextInt(8) == 0 ? random.nextInt(m) : m;
+            MonsterMovie movie = new MonsterMovie(title(titleNumber), year(random), MOVIE_SIZE);
+            for (int c = 0; c < MOVIE_SIZE; c++) {
+                movie.addCharacter(new HorrorCharacter(name(random.nextInt(NAMES)), random.nextInt(1, 1000),
+                        SUBTYPES[random.nextInt(SUBTYPES.length)], random.nextInt(0, 2025),
+                        VULNERABILITIES[random.nextInt(VULNERABILITIES.length)]));
+            }
+            movies.add(movie);
+        }
+        return movies;
+    }
+
+    /**
+     * Writes a generated catalog as a SavedMovie file.
+     *
+     * @param characters the total number of characters, rounded up to whole movies
+     * @param seed       the seed of the catalog
+     * @param fileName   the file to write
+     * @throws IOException if the file cannot be written
+     */
+    static void writeSavedMovie(int characters, long seed, String fileName) throws IOException {
+        MovieFiles.saveMovie(generate(characters, seed), fileName);
+    }
+
+    /**
+     * Gets the number of movies of a catalog with the given number of characters.
+     */
+    static int movieCount(int characters) {
+        return Math.max(1, (characters + MOVIE_SIZE - 1) / MOVIE_SIZE);
+    }
+
+    /**
+     * Gets the title of the given title number.
+     */
+    static String title(int titleNumber) {
+        return "Night of the Creature " + titleNumber;
+    }
+
+    /**
+     * Gets the character name of the given name number.
+     */
+    static String name(int nameNumber) {
+        return "creature" + nameNumber;
+    }
+
+    private static int year(SplittableRandom random) {
+        return FIRST_YEAR + random.nextInt(YEARS);
+    }
+}
@@ -0,0 +1,215 @@
+package monstermovies;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Checks ConcurrentMovieCollection under contention: writer threads add and remove characters while another
+ * thread keeps re-dating the movies and reader threads keep copying them through the optimistic reads.
+ *
+ * <p>Writer w adds the characters named "W w-r" to every movie for the rounds r, removing the character of
+ * round r - 1 after adding an odd round, so a consistent copy of a movie never holds more than one
+ * even-numbered character of a writer, and at the end each movie holds the odd rounds of every writer.
+ * The readers check every copy they get against this, and the final contents and character index are checked
+ * once all threads are done. Any exception thrown by a thread fails the check.
+ *
+ * <p>Run after mvn package, optionally giving the number of writers, readers and rounds:
+ * <pre>
+ *     java -cp bench/target/benchmarks.jar monstermovies.ConcurrentStressCheck 8 4 200
+ * </pre>
+ * Exits with status 1 when a check fails.
+ */
+public final class ConcurrentStressCheck {
+
+    private static final int MOVIES = 100;
+    private static final int FIRST_YEAR = 1950;
+
+    private final int writers;
+    private final int readers;
+    private final int rounds;
+    private final ConcurrentMovieCollection collection = new ConcurrentMovieCollection();
+    private final Queue<String> failures = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean writing = new AtomicBoolean(true);
+    private long copiesChecked;
+
+    private ConcurrentStressCheck(int writers, int readers, int rounds) {
+        this.writers = writers;
+        this.readers = readers;
+        // an even number of rounds leaves no character of an unfinished pair behind
+        this.rounds = rounds + rounds % 2;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int writers = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int readers = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+        ConcurrentStressCheck check = new ConcurrentStressCheck(writers, readers, rounds);
+        long start = System.nanoTime();
+        check.run();
+        long elapsed = (System.nanoTime() - start) / 1_000_000;
+        if (!check.failures.isEmpty()) {
+            System.err.println(check.failures.size() + " failures, the first ones:");
+            check.failures.stream().limit(20).forEach(failure -> System.err.println("  " + failure));
+            System.exit(1);
+        }
+        System.out.println("OK: " + writers + " writers, " + readers + " readers, " + check.rounds
+                + " rounds on " + MOVIES + " movies, " + check.copiesChecked + " copies checked in "
+                + elapsed + " ms");
+    }
+
+    private void run() throws InterruptedException {
+        for (int m = 0; m < MOVIES; m++) {
+            collection.addMovie(new MonsterMovie(title(m), FIRST_YEAR + m % 10));
+        }
+        CountDownLatch started = new CountDownLatch(1);
+        List<Thread> writerThreads = new ArrayList<>();
+        for (int w = 0; w < writers; w++) {
+            int writer = w;
+            writerThreads.add(start(started, "writer-" + w, () -> write(writer)));
+        }
+        writerThreads.add(start(started, "re-dater", this::redate));
+        long[] copies = new long[readers];
+        List<Thread> readerThreads = new ArrayList<>();
+        for (int r = 0; r < readers; r++) {
+            int reader = r;
+            readerThreads.add(start(started, "reader-" + r, () -> copies[reader] = read()));
+        }
+        started.countDown();
+        for (Thread thread : writerThreads) {
+            thread.join();
+        }
+        writing.set(false);
+        for (Thread thread : readerThreads) {
+            thread.join();
+        }
+        copiesChecked = Arrays.stream(copies).sum();
+        checkFinalState();
+    }
+
+    private Thread start(CountDownLatch started, String name, Runnable task) {
+        Thread thread = new Thread(() -> {
+            try {
+                started.await();
+                task.run();
+            } catch (Throwable e) {
+                failures.add(Thread.currentThread().getName() + " threw " + e);
+            }
+        }, name);
+        thread.start();
+        return thread;
+    }
+
+    private void write(int writer) {
+        for (int round = 0; round < rounds; round++) {
+            for (int m = 0; m < MOVIES; m++) {
+                String name = characterName(writer, round);
+                if (!collection.addCharacter(title(m), new HorrorCharacter(name, round, "ghost", 0, "salt"))) {
+                    failures.add("adding " + name + " to " + title(m) + " failed");
+                }
+                if (round % 2 == 1) {
+                    String previous = characterName(writer, round - 1);
+                    int removed = collection.removeCharacter(title(m), previous);
+                    if (removed != 1) {
+                        failures.add("removing " + previous + " from " + title(m) + " removed " + removed);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Moves the movies between release years while the writers run, so their locks and indexes change too.
+     */
+    private void redate() {
+        for (int round = 0; round < rounds; round++) {
+            int m = round % MOVIES;
+            collection.editMovies(title(m), "", FIRST_YEAR + (m + round) % 10);
+        }
+    }
+
+    private long read() {
+        long checked = 0;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (writing.get()) {
+            int m = random.nextInt(MOVIES);
+            List<MonsterMovie> found = collection.findMoviesByTitle(title(m));
+            if (found.size() != 1) {
+                failures.add("found " + found.size() + " movies titled " + title(m));
+            } else {
+                checkCopy(found.get(0), false);
+            }
+            // weakly consistent, a movie being re-dated may be missed or seen twice
+            List<MonsterMovie> all = collection.findMoviesByYearRange(FIRST_YEAR, FIRST_YEAR + 9);
+            for (MonsterMovie movie : all) {
+                checkCopy(movie, false);
+            }
+            checked += all.size() + 1;
+        }
+        return checked;
+    }
+
+    /**
+     * Checks that a copy holds at most one unpaired character per writer, or none once all writers are done.
+     */
+    private void checkCopy(MonsterMovie movie, boolean finished) {
+        int[] unpaired = new int[writers];
+        int[] paired = new int[writers];
+        for (HorrorCharacter character : movie.getHorrorCharacters()) {
+            String name = character.getName();
+            int writer = Integer.parseInt(name.substring(1, name.indexOf('-')));
+            int round = Integer.parseInt(name.substring(name.indexOf('-') + 1));
+            if (character.getAge() != round) {
+                failures.add(movie.getTitle() + " holds " + name + " aged " + character.getAge());
+            }
+            if (round % 2 == 0) {
+                unpaired[writer]++;
+            } else {
+                paired[writer]++;
+            }
+        }
+        for (int w = 0; w < writers; w++) {
+            if (unpaired[w] > (finished ? 0 : 1) || paired[w] > rounds / 2 || finished && paired[w] != rounds / 2) {
+                failures.add(movie.getTitle() + " holds " + unpaired[w] + " even and " + paired[w]
+                        + " odd characters of writer " + w);
+            }
+        }
+    }
+
+    private void checkFinalState() {
+        if (collection.size() != MOVIES) {
+            failures.add("the collection holds " + collection.size() + " movies instead of " + MOVIES);
+        }
+        int byYear = collection.findMoviesByYearRange(FIRST_YEAR, FIRST_YEAR + 9).size();
+        if (byYear != MOVIES) {
+            failures.add("the year index holds " + byYear + " movies instead of " + MOVIES);
+        }
+        int expected = writers * rounds / 2;
+        for (MonsterMovie movie : collection.getMovies()) {
+            if (movie.getHorrorCharacters().size() != expected) {
+                failures.add(movie.getTitle() + " holds " + movie.getHorrorCharacters().size()
+                        + " characters instead of " + expected);
+            }
+            checkCopy(movie, true);
+        }
+        for (int w = 0; w < writers; w++) {
+            for (int round = 0; round < rounds; round++) {
+                String name = characterName(w, round);
+                int featuring = collection.findMoviesByCharacter(name).size();
+                if (featuring != (round % 2 == 1 ? MOVIES : 0)) {
+                    failures.add("the character index lists " + featuring + " movies featuring " + name);
+                }
+            }
+        }
+    }
+
+    private static String title(int movie) {
+        return "Movie " + movie;
+    }
+
+    private static String characterName(int writer, int round) {
+        return "W" + writer + "-" + round;
+    }
+}
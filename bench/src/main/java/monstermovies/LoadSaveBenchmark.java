@@ -0,0 +1,54 @@
+package monstermovies;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks reading and writing a whole catalog as a SavedMovie file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms6g", "-Xmx6g"})
+public class LoadSaveBenchmark {
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int characters;
+
+    private File input;
+    private File output;
+    private MovieCollection collection;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        input = Files.createTempFile("SavedMovie-" + characters + "-", ".txt").toFile();
+        output = Files.createTempFile("SavedMovie-out-", ".txt").toFile();
+        CatalogGenerator.writeSavedMovie(characters, CatalogGenerator.SEED, input.getPath());
+        collection = CatalogGenerator.generate(characters, CatalogGenerator.SEED);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        input.delete();
+        output.delete();
+    }
+
+    @Benchmark
+    public MovieCollection readFromFile() throws IOException {
+        MovieCollection loaded = new MovieCollection();
+        MovieFiles.readFromFile(loaded, input.getPath());
+        return loaded;
+    }
+
+    @Benchmark
+    public long saveMovie() throws IOException {
+        MovieFiles.saveMovie(collection, output.getPath());
+        return output.length();
+    }
+}
@@ -0,0 +1,94 @@
+package monstermovies;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the lookups done per row or per movie: finding the movie of a title while reading a file,
+ * walking the characters of a movie, finding its most common vulnerability, finding the characters
+ * reborn in a year through the rebirth index and taking a snapshot after changing one movie.
+ * Every call moves on to the next title or movie, so the benchmarks do not keep hitting one cached entry.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms6g", "-Xmx6g"})
+public class LookupBenchmark {
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int characters;
+
+    private MovieCollection collection;
+    private MonsterMovie[] movies;
+    private String[] titles;
+    private int[] years;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        collection = CatalogGenerator.generate(characters, CatalogGenerator.SEED);
+        movies = collection.getMovies().toArray(new MonsterMovie[0]);
+        titles = new String[movies.length];
+        years = new int[movies.length];
+        for (int m = 0; m < movies.length; m++) {
+            // upper case, so every lookup has to normalize the title like a row read from a file
+            titles[m] = movies[m].getTitle().toUpperCase();
+            years[m] = movies[m].getYearReleased();
+        }
+    }
+
+    /**
+     * Looks up an existing title the way MovieFiles.readFromFile does for every row after the first of a movie.
+     */
+    @Benchmark
+    public MonsterMovie findOrCreateMovie() {
+        int m = nextIndex();
+        return collection.findOrCreateMovie(titles[m], years[m]);
+    }
+
+    @Benchmark
+    public int getHorrorCharacters() {
+        int ages = 0;
+        for (HorrorCharacter character : movies[nextIndex()].getHorrorCharacters()) {
+            ages += character.getAge();
+        }
+        return ages;
+    }
+
+    @Benchmark
+    public String getMostCommonVulnerability() {
+        return movies[nextIndex()].getMostCommonVulnerability();
+    }
+
+    /**
+     * Finds the characters reborn in one year, a range holding about one in 2025 characters of the catalog.
+     */
+    @Benchmark
+    public List<HorrorCharacter> findCharactersByRebirth() {
+        int year = nextIndex() % 2025;
+        return collection.findCharactersByRebirth(year, year);
+    }
+
+    /**
+     * Changes the age of a character of one movie and takes a snapshot, which copies only the chunk of that movie.
+     */
+    @Benchmark
+    public MovieSnapshot snapshotAfterChange() {
+        List<HorrorCharacter> characters = movies[nextIndex()].getHorrorCharacters();
+        if (!characters.isEmpty()) {
+            HorrorCharacter character = characters.get(0);
+            character.setAge(character.getAge() % 1000 + 1);
+        }
+        return collection.snapshot();
+    }
+
+    private int nextIndex() {
+        int m = next;
+        next = m + 1 == movies.length ? 0 : m + 1;
+        return m;
+    }
+}
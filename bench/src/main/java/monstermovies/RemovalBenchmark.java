@@ -0,0 +1,74 @@
+package monstermovies;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks removing the movies with a title, from a year or featuring a character.
+ *
+ * <p>Every iteration removes one randomly chosen key once, and the removed movies are added back
+ * afterwards, outside the measurement, so the catalog keeps its size. The benchmarks call the methods
+ * that removeMovieByTitle, removeMovieByYear and removeMovieByCharacter delegate to, which do the same
+ * work without checking their argument.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 50)
+@Measurement(iterations = 200)
+@Fork(value = 1, jvmArgsAppend = {"-Xms6g", "-Xmx6g"})
+public class RemovalBenchmark {
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int characters;
+
+    private MovieCollection collection;
+    private SplittableRandom random;
+    private String title;
+    private int year;
+    private String characterName;
+    // the movies any of the benchmarks may remove in the current iteration
+    private Set<MonsterMovie> candidates;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        collection = CatalogGenerator.generate(characters, CatalogGenerator.SEED);
+        random = new SplittableRandom(CatalogGenerator.SEED);
+    }
+
+    @Setup(Level.Iteration)
+    public void chooseVictims() {
+        title = CatalogGenerator.title(random.nextInt(CatalogGenerator.movieCount(characters)));
+        year = CatalogGenerator.FIRST_YEAR + random.nextInt(CatalogGenerator.YEARS);
+        characterName = CatalogGenerator.name(random.nextInt(CatalogGenerator.NAMES));
+        candidates = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int ordinal = 0; collection.findMovie(title, ordinal) != null; ordinal++) {
+            candidates.add(collection.findMovie(title, ordinal));
+        }
+        candidates.addAll(collection.findMoviesByYearRange(year, year));
+        candidates.addAll(collection.findMoviesByCharacter(characterName));
+    }
+
+    @TearDown(Level.Iteration)
+    public void restoreVictims() {
+        // removed movies no longer have a listener
+        collection.addMovies(candidates.stream().filter(movie -> movie.getListener() == null).toList());
+    }
+
+    @Benchmark
+    public int removeMovieByTitle() {
+        return collection.removeAllWithTitle(title);
+    }
+
+    @Benchmark
+    public int removeMovieByYear() {
+        return collection.removeAllFromYear(year);
+    }
+
+    @Benchmark
+    public int removeMovieByCharacter() {
+        return collection.removeAllWithCharacter(characterName);
+    }
+}
@@ -0,0 +1,114 @@
+package monstermovies;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Load-tests the HTTP service (see MovieServer) on localhost: every operation sends a burst of concurrent
+ * requests and waits for all of their answers, so the time per operation divided by the concurrency is
+ * the time per request at that load. The server and the client run in the benchmark JVM, the client
+ * sending each request from its own virtual thread.
+ *
+ * <p>The lookups ask for the movies of a title, moving on to the next title with every request, and the
+ * stats ask for the collection-wide counts, which are served from the cached snapshot.
+ * Large concurrencies need as many open files as concurrent connections, see ulimit -n.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class ServerLoadBenchmark {
+
+    @Param({"100000"})
+    public int characters;
+
+    @Param({"1", "100", "1000", "5000"})
+    public int concurrency;
+
+    private MovieServer server;
+    private ExecutorService clientExecutor;
+    private HttpClient client;
+    private URI[] byTitle;
+    private URI stats;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        MovieCollection collection = CatalogGenerator.generate(characters, CatalogGenerator.SEED);
+        server = new MovieServer(collection, new ReentrantReadWriteLock(true));
+        server.start(new InetSocketAddress("localhost", 0));
+        String base = "http://localhost:" + server.getPort();
+        byTitle = collection.getMovies().stream()
+                .map(movie -> URI.create(base + "/movies/by-title?title="
+                        + URLEncoder.encode(movie.getTitle(), StandardCharsets.UTF_8)))
+                .toArray(URI[]::new);
+        stats = URI.create(base + "/stats");
+        clientExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).executor(clientExecutor).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        client.close();
+        clientExecutor.close();
+        server.stop();
+    }
+
+    @Benchmark
+    public int findMoviesByTitle() {
+        URI[] uris = new URI[concurrency];
+        for (int i = 0; i < concurrency; i++) {
+            uris[i] = byTitle[next];
+            next = next + 1 == byTitle.length ? 0 : next + 1;
+        }
+        return burst(uris);
+    }
+
+    @Benchmark
+    public int stats() {
+        URI[] uris = new URI[concurrency];
+        Arrays.fill(uris, stats);
+        return burst(uris);
+    }
+
+    /**
+     * Sends all requests at once and waits for every answer.
+     *
+     * @return the total length of the answers
+     */
+    private int burst(URI[] uris) {
+        List<CompletableFuture<Integer>> answers = new ArrayList<>(uris.length);
+        for (URI uri : uris) {
+            answers.add(client.sendAsync(HttpRequest.newBuilder(uri).build(), HttpResponse.BodyHandlers.ofString())
+                    .thenApply(response -> {
+                        if (response.statusCode() != 200) {
+                            throw new IllegalStateException("Status " + response.statusCode() + " for " + uri);
+                        }
+                        return response.body().length();
+                    }));
+        }
+        int length = 0;
+        for (CompletableFuture<Integer> answer : answers) {
+            length += answer.join();
+        }
+        return length;
+    }
+}
@@ -0,0 +1,132 @@
+package monstermovies;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cold start of the interactive program: the time from launching a new JVM running the cli jar
+ * until the first menu is printed, which includes loading the collection.
+ *
+ * <p>The sharing parameter selects the class data sharing setup of the launched JVM: off disables it,
+ * default uses the archive of the JDK classes that ships with the JDK, and app adds the AppCDS archive
+ * built with mvn package -Pcds. Run from the project root after building the cli with that profile, or
+ * point the benchmark at other files with the startup.java, startup.jar and startup.archive system
+ * properties. The archive only works with the Java launcher it was made with.
+ *
+ * <p>The program works on a generated catalog in a temporary directory, never on the real SavedMovie file.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 20)
+@Fork(1)
+public class StartupBenchmark {
+
+    private static final String LAST_MENU_LINE = "14. Export to the text file";
+
+    @Param({"off", "default", "app"})
+    public String sharing;
+
+    @Param({"1000"})
+    public int characters;
+
+    private List<String> command;
+    private Path directory;
+    private Process process;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        String java = System.getProperty("startup.java",
+                Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        String jar = System.getProperty("startup.jar", "cli/target/assignment4-cli.jar");
+        String archive = System.getProperty("startup.archive", "cli/target/assignment4-cli.jsa");
+        if (!new File(jar).isFile()) {
+            throw new IllegalStateException("No cli jar at " + jar + ", build it with mvn package");
+        }
+        directory = Files.createTempDirectory("startup-");
+        String savedMovie = directory.resolve("SavedMovie").toString();
+        CatalogGenerator.writeSavedMovie(characters, CatalogGenerator.SEED, savedMovie);
+
+        command = new ArrayList<>();
+        command.add(java);
+        switch (sharing) {
+            case "off" -> command.add("-Xshare:off");
+            case "default" -> {
+            }
+            case "app" -> {
+                if (!new File(archive).isFile()) {
+                    throw new IllegalStateException("No CDS archive at " + archive + ", build it with mvn package -Pcds");
+                }
+                command.add("-XX:SharedArchiveFile=" + archive);
+            }
+            default -> throw new IllegalArgumentException("Unknown sharing setup " + sharing);
+        }
+        command.add("-Dmonstermovies.file=" + savedMovie);
+        command.add("-jar");
+        command.add(jar);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (var files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    /**
+     * Launches the program and waits for the last line of its first menu.
+     */
+    @Benchmark
+    public Process timeToFirstMenu() throws IOException {
+        process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.DISCARD).start();
+        BufferedReader output = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+        String line;
+        while ((line = output.readLine()) != null) {
+            if (line.contains(LAST_MENU_LINE)) {
+                return process;
+            }
+        }
+        throw new IllegalStateException("The program exited before showing its menu, exit code " + exitCode());
+    }
+
+    /**
+     * Chooses Save &amp; Exit, so the next launch finds the collection saved, and waits for the program to end.
+     */
+    @TearDown(Level.Iteration)
+    public void exit() throws IOException, InterruptedException {
+        if (process == null) {
+            return;
+        }
+        try (Writer input = new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8)) {
+            input.write("13" + System.lineSeparator());
+        } catch (IOException e) {
+            // the program has already exited
+        }
+        process.getInputStream().transferTo(OutputStream.nullOutputStream());
+        if (!process.waitFor(30, TimeUnit.SECONDS)) {
+            process.destroyForcibly();
+        }
+        process = null;
+    }
+
+    private int exitCode() {
+        try {
+            return process.waitFor();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return -1;
+        }
+    }
+}
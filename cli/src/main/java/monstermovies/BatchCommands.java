@@ -0,0 +1,383 @@
+package monstermovies;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * BatchCommands runs the headless mode of the program (Main --batch): it reads one command per line
+ * and runs the commands back to back against a MovieCollection, without menus or pauses.
+ *
+ * <p>A command is a name followed by its arguments, separated by spaces. An argument holding spaces is
+ * written in double quotes, and a backslash inside quotes escapes the next character. Blank lines and
+ * lines starting with # are skipped. The commands are:
+ * <ul>
+ *     <li>add-movie title year</li>
+ *     <li>add-character title name age subtype rebirth vulnerability</li>
+ *     <li>remove-year year</li>
+ *     <li>remove-title title</li>
+ *     <li>remove-character name, removing the movies featuring the character</li>
+ *     <li>delete-character title name, removing the character from the movies with the title</li>
+ *     <li>edit-movie title new-title new-year</li>
+ *     <li>edit-character title name new-name age subtype rebirth vulnerability</li>
+ *     <li>movies [year]</li>
+ *     <li>characters title</li>
+ *     <li>characters-aged min-age max-age</li>
+ *     <li>characters-reborn from-year to-year</li>
+ *     <li>complete prefix [limit], the titles starting with the prefix</li>
+ *     <li>search query [limit], the titles most similar to a partial or misspelled title</li>
+ *     <li>stats [k]</li>
+ *     <li>export [file], writing the collection to a text file in the SavedMovie format, by default the
+ *     file the collection is imported from</li>
+ * </ul>
+ * Titles and names are matched ignoring case, and a command naming a title applies to every movie with it,
+ * like the interactive menu.
+ *
+ * <p>Every command answers with one line of JSON on the output, holding the line number, the command,
+ * whether it succeeded and either its result or an error message, for example
+ * {"line":3,"command":"remove-year","ok":true,"removed":2}. The output is flushed whenever the input
+ * has no more commands ready, so a long script is answered in large writes while a program feeding
+ * commands through a pipe still gets each answer as soon as it is ready.
+ */
+final class BatchCommands {
+
+    /**
+     * The earliest release year a movie can be changed to, as in the interactive menu.
+     */
+    private static final int FIRST_MOVIE_YEAR = 1895;
+
+    private final MovieCollection collection;
+    private final PrintWriter out;
+    private final Predicate<String> export;
+    private final StringBuilder line = new StringBuilder(256);
+    // where the ok flag of the answer being written starts, so a failure can cut off a partial result
+    private int okAt;
+    private int failures;
+
+    /**
+     * Constructs a BatchCommands running commands against a collection.
+     *
+     * @param collection the collection the commands change
+     * @param out        where the answers are written
+     * @param export     exports the collection to the given text file, or to the default one if given null,
+     *                   and tells whether it succeeded
+     */
+    BatchCommands(MovieCollection collection, PrintWriter out, Predicate<String> export) {
+        this.collection = collection;
+        this.out = out;
+        this.export = export;
+    }
+
+    /**
+     * Runs every command until the input ends.
+     *
+     * @param in the commands, one per line
+     * @return the number of commands that failed
+     * @throws IOException if the input cannot be read
+     */
+    int run(BufferedReader in) throws IOException {
+        String text;
+        int lineNumber = 0;
+        while ((text = in.readLine()) != null) {
+            lineNumber++;
+            List<String> words = split(text);
+            if (words == null) {
+                answer(lineNumber, "");
+                fail("unterminated quote");
+            } else if (!words.isEmpty() && !words.get(0).startsWith("#")) {
+                answer(lineNumber, words.get(0));
+                try {
+                    execute(words.get(0), words.subList(1, words.size()));
+                    line.append('}');
+                } catch (IllegalArgumentException e) {
+                    fail(e.getMessage());
+                }
+            } else {
+                continue;
+            }
+            out.println(line);
+            if (!in.ready()) {
+                out.flush();
+            }
+        }
+        out.flush();
+        return failures;
+    }
+
+    /**
+     * Starts the answer to a command; the command fills in its result and the answer is closed after it.
+     */
+    private void answer(int lineNumber, String command) {
+        line.setLength(0);
+        line.append("{\"line\":").append(lineNumber).append(",\"command\":");
+        quote(command);
+        okAt = line.length();
+        line.append(",\"ok\":true");
+    }
+
+    /**
+     * Turns the answer being written into an error answer holding only the line, the command and the message.
+     */
+    private void fail(String message) {
+        line.setLength(okAt);
+        line.append(",\"ok\":false,\"error\":");
+        quote(message);
+        line.append('}');
+        failures++;
+    }
+
+    /**
+     * Runs one command and appends its result to the answer.
+     *
+     * @throws IllegalArgumentException if the command is unknown, its arguments are wrong or the change is rejected
+     */
+    private void execute(String command, List<String> args) {
+        switch (command) {
+            case "add-movie" -> {
+                arguments(args, 2);
+                collection.addMovie(new MonsterMovie(args.get(0), number(args.get(1), "year")));
+            }
+            case "add-character" -> {
+                arguments(args, 6);
+                HorrorCharacter character = character(args, 1);
+                if (collection.findMovie(args.get(0), 0) == null) {
+                    throw new IllegalArgumentException("movie not found");
+                }
+                if (!collection.addCharacters(args.get(0), List.of(character))) {
+                    throw new IllegalArgumentException("character rejected");
+                }
+            }
+            case "remove-year" -> {
+                arguments(args, 1);
+                line.append(",\"removed\":").append(collection.removeAllFromYear(number(args.get(0), "year")));
+            }
+            case "remove-title" -> {
+                arguments(args, 1);
+                line.append(",\"removed\":").append(collection.removeAllWithTitle(args.get(0)));
+            }
+            case "remove-character" -> {
+                arguments(args, 1);
+                line.append(",\"removed\":").append(collection.removeAllWithCharacter(args.get(0)));
+            }
+            case "delete-character" -> {
+                arguments(args, 2);
+                line.append(",\"removed\":").append(collection.removeCharacterInAMovie(args.get(0), args.get(1)));
+            }
+            case "edit-movie" -> {
+                arguments(args, 3);
+                int year = number(args.get(2), "year");
+                if (year < FIRST_MOVIE_YEAR) {
+                    throw new IllegalArgumentException("year must be at least " + FIRST_MOVIE_YEAR);
+                }
+                List<MonsterMovie> edited = collection.findMoviesByTitle(args.get(0));
+                for (MonsterMovie movie : edited) {
+                    movie.setTitle(args.get(1));
+                    movie.setYearReleased(year);
+                }
+                line.append(",\"updated\":").append(edited.size());
+            }
+            case "edit-character" -> {
+                arguments(args, 7);
+                // building the new character checks every attribute before any character is changed
+                HorrorCharacter edit = character(args, 2);
+                String key = MovieCollection.titleKey(args.get(1));
+                int updated = 0;
+                for (MonsterMovie movie : collection.findMoviesByTitle(args.get(0))) {
+                    // copy the characters, renaming one moves it to another place in the movie's list
+                    for (HorrorCharacter character : new ArrayList<>(movie.getHorrorCharacters())) {
+                        if (MovieCollection.titleKey(character.getName()).equals(key)) {
+                            character.setName(edit.getName());
+                            character.setAge(edit.getAge());
+                            character.setSubtype(edit.getSubtype());
+                            character.setRebirth(edit.getRebirth());
+                            character.setVulnerability(edit.getVulnerability());
+                            updated++;
+                        }
+                    }
+                }
+                line.append(",\"updated\":").append(updated);
+            }
+            case "movies" -> {
+                if (args.size() > 1) {
+                    arguments(args, 1);
+                }
+                Iterable<MonsterMovie> listed = collection.getMovies();
+                if (args.size() == 1) {
+                    int year = number(args.get(0), "year");
+                    listed = collection.findMoviesByYearRange(year, year);
+                }
+                line.append(",\"movies\":[");
+                String separator = "";
+                for (MonsterMovie movie : listed) {
+                    line.append(separator).append("{\"title\":");
+                    quote(movie.getTitle());
+                    line.append(",\"year\":").append(movie.getYearReleased())
+                            .append(",\"characters\":").append(movie.getHorrorCharacters().size()).append('}');
+                    separator = ",";
+                }
+                line.append(']');
+            }
+            case "characters" -> {
+                arguments(args, 1);
+                line.append(",\"characters\":[");
+                String separator = "";
+                for (MonsterMovie movie : collection.findMoviesByTitle(args.get(0))) {
+                    for (HorrorCharacter character : movie.getHorrorCharacters()) {
+                        line.append(separator);
+                        character(character, false);
+                        separator = ",";
+                    }
+                }
+                line.append(']');
+            }
+            case "characters-aged" -> {
+                arguments(args, 2);
+                characters(collection.findCharactersByAge(number(args.get(0), "min-age"), number(args.get(1), "max-age")));
+            }
+            case "characters-reborn" -> {
+                arguments(args, 2);
+                characters(collection.findCharactersByRebirth(number(args.get(0), "from-year"),
+                        number(args.get(1), "to-year")));
+            }
+            case "complete", "search" -> {
+                if (args.size() != 2) {
+                    arguments(args, 1);
+                }
+                int limit = args.size() == 2 ? number(args.get(1), "limit") : 10;
+                List<String> titles = command.equals("complete")
+                        ? collection.completeTitle(args.get(0), limit)
+                        : collection.searchTitles(args.get(0), limit);
+                line.append(",\"titles\":[");
+                String separator = "";
+                for (String title : titles) {
+                    line.append(separator);
+                    quote(title);
+                    separator = ",";
+                }
+                line.append(']');
+            }
+            case "stats" -> {
+                if (args.size() > 1) {
+                    arguments(args, 1);
+                }
+                int k = args.isEmpty() ? 5 : number(args.get(0), "k");
+                line.append(",\"movies\":").append(collection.getMovies().size())
+                        .append(",\"characters\":").append(collection.getCharacterCount()).append(",\"subtypes\":");
+                counts(collection.getTopSubtypes(k));
+                line.append(",\"vulnerabilities\":");
+                counts(collection.getTopVulnerabilities(k));
+            }
+            case "export" -> {
+                if (args.size() > 1) {
+                    arguments(args, 1);
+                }
+                if (!export.test(args.isEmpty() ? null : args.get(0))) {
+                    throw new IllegalArgumentException("export failed");
+                }
+            }
+            default -> throw new IllegalArgumentException("unknown command");
+        }
+    }
+
+    /**
+     * Builds a character from the five arguments name, age, subtype, rebirth and vulnerability.
+     */
+    private static HorrorCharacter character(List<String> args, int from) {
+        return new HorrorCharacter(args.get(from), number(args.get(from + 1), "age"), args.get(from + 2),
+                number(args.get(from + 3), "rebirth"), args.get(from + 4));
+    }
+
+    private static void arguments(List<String> args, int expected) {
+        if (args.size() != expected) {
+            throw new IllegalArgumentException("expected " + expected + " arguments but got " + args.size());
+        }
+    }
+
+    private static int number(String text, String name) {
+        try {
+            return Integer.parseInt(text);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " must be a number");
+        }
+    }
+
+    /**
+     * Appends characters found across movies, each with the title of its movie.
+     */
+    private void characters(List<HorrorCharacter> characters) {
+        line.append(",\"characters\":[");
+        String separator = "";
+        for (HorrorCharacter character : characters) {
+            line.append(separator);
+            character(character, true);
+            separator = ",";
+        }
+        line.append(']');
+    }
+
+    private void character(HorrorCharacter character, boolean withMovie) {
+        JsonText.character(line, character, withMovie);
+    }
+
+    /**
+     * Appends counted values as a JSON object, most common first.
+     */
+    private void counts(List<Map.Entry<String, Integer>> counts) {
+        line.append('{');
+        String separator = "";
+        for (Map.Entry<String, Integer> count : counts) {
+            line.append(separator);
+            quote(count.getKey());
+            line.append(':').append(count.getValue());
+            separator = ",";
+        }
+        line.append('}');
+    }
+
+    private void quote(String text) {
+        JsonText.quote(line, text);
+    }
+
+    /**
+     * Splits a command line into words at spaces, keeping quoted words together.
+     *
+     * @param text the command line
+     * @return the words, or null if a quote is not closed
+     */
+    static List<String> split(String text) {
+        List<String> words = new ArrayList<>();
+        StringBuilder word = new StringBuilder();
+        int i = 0;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '"') {
+                word.setLength(0);
+                i++;
+                while (i < text.length() && text.charAt(i) != '"') {
+                    if (text.charAt(i) == '\\' && i + 1 < text.length()) {
+                        i++;
+                    }
+                    word.append(text.charAt(i++));
+                }
+                if (i == text.length()) {
+                    return null;
+                }
+                i++;
+                words.add(word.toString());
+            } else {
+                int start = i;
+                while (i < text.length() && !Character.isWhitespace(text.charAt(i))) {
+                    i++;
+                }
+                words.add(text.substring(start, i));
+            }
+        }
+        return words;
+    }
+}
@@ -0,0 +1,86 @@
+package monstermovies;
+
+/**
+ * JsonText writes the JSON the headless modes answer with, see BatchCommands and MovieServer.
+ * Values are appended to a StringBuilder, so an answer is built without an intermediate tree of objects.
+ */
+final class JsonText {
+
+    private JsonText() {
+    }
+
+    /**
+     * Appends a string as a JSON string literal, or null as the JSON null, such as the title of a movie given
+     * a null title.
+     *
+     * @param out  where to append
+     * @param text the string, or null
+     */
+    static void quote(StringBuilder out, String text) {
+        if (text == null) {
+            out.append("null");
+            return;
+        }
+        out.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+                }
+            }
+        }
+        out.append('"');
+    }
+
+    /**
+     * Appends a character as a JSON object, optionally with the title of its movie.
+     *
+     * @param out       where to append
+     * @param character the character
+     * @param withMovie whether to add the title of the movie holding the character
+     */
+    static void character(StringBuilder out, HorrorCharacter character, boolean withMovie) {
+        out.append('{');
+        if (withMovie) {
+            out.append("\"movie\":");
+            quote(out, character.getMovie().getTitle());
+            out.append(',');
+        }
+        out.append("\"name\":");
+        quote(out, character.getName());
+        out.append(",\"age\":").append(character.getAge()).append(",\"subtype\":");
+        quote(out, character.getSubtype());
+        out.append(",\"rebirth\":").append(character.getRebirth()).append(",\"vulnerability\":");
+        quote(out, character.getVulnerability());
+        out.append('}');
+    }
+
+    /**
+     * Appends a movie as a JSON object holding its title, its release year and all of its characters.
+     *
+     * @param out   where to append
+     * @param movie the movie
+     */
+    static void movie(StringBuilder out, MonsterMovie movie) {
+        out.append("{\"title\":");
+        quote(out, movie.getTitle());
+        out.append(",\"year\":").append(movie.getYearReleased()).append(",\"characters\":[");
+        String separator = "";
+        for (HorrorCharacter character : movie.getHorrorCharacters()) {
+            out.append(separator);
+            character(out, character, false);
+            separator = ",";
+        }
+        out.append("]}");
+    }
+}
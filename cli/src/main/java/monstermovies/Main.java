@@ -0,0 +1,513 @@
+package monstermovies;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.InputMismatchException;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * The Main class is the entry point for the Movie Collection Management Program.
+ * This program allows users to manage a collection of movies and their associated characters,
+ * with features such as adding, removing, displaying, and saving movies and characters.
+ * The program interacts with the user through a menu-driven interface.
+ */
+public class Main {
+
+    /**
+     * The text file the collection is imported from when there is no up-to-date snapshot.
+     * The monstermovies.file system property points the program at another file, such as a copy
+     * used to train the class data sharing archive (see cli/pom.xml).
+     */
+    private static final String SAVED_MOVIE_FILE = System.getProperty("monstermovies.file",
+            "/Users/berk/Documents/JAVA 2024/Assignment4/cli/SavedMovie");
+
+    /**
+     * The binary snapshot the collection is loaded from and saved to.
+     */
+    private static final String SNAPSHOT_FILE = SAVED_MOVIE_FILE + ".bin";
+
+    /**
+     * The journal every change to the collection is appended to between two snapshots.
+     */
+    private static final String JOURNAL_FILE = SAVED_MOVIE_FILE + ".journal";
+
+    /**
+     * The time between two autosaves of the snapshot in seconds, used when the journal cannot be opened.
+     * The monstermovies.autosave system property sets another interval, and 0 turns autosaving off.
+     */
+    private static final long AUTOSAVE_SECONDS = Long.getLong("monstermovies.autosave",
+            TimeUnit.MILLISECONDS.toSeconds(AutosaveService.DEFAULT_INTERVAL_MILLIS));
+
+    /**
+     * The address the HTTP service listens on, set with the monstermovies.host system property.
+     * Only local programs can reach the service unless another address, such as 0.0.0.0, is given.
+     */
+    private static final String SERVER_HOST = System.getProperty("monstermovies.host", "localhost");
+
+    /**
+     * The port the HTTP service listens on when no port is given.
+     */
+    private static final int DEFAULT_SERVER_PORT = 8080;
+
+    /**
+     * The main method provides a menu-driven interface for managing a movie collection.
+     * Users can perform the following actions:
+     * <ul>
+     *     <li>Create a new movie</li>
+     *     <li>Add a new character to a movie</li>
+     *     <li>Remove a movie by year, title, or character name</li>
+     *     <li>Remove a character from a movie</li>
+     *     <li>Display all movies or characters</li>
+     *     <li>Display movies by year</li>
+     *     <li>Edit movie title and/or year</li>
+     *     <li>Edit a character from a movie</li>
+     *     <li>Export the collection to the text file</li>
+     *     <li>Save the collection and exit</li>
+     * </ul>
+     * The program handles invalid inputs and ensures data persistence by reading from and saving to a file.
+     * The collection is recovered from the binary snapshot and its journal unless the text file is newer,
+     * in which case the text file is imported. Every change is appended to the journal as it is made,
+     * and exiting only waits for the last changes to reach the disk. If the journal cannot be opened,
+     * the snapshot is saved in the background every AUTOSAVE_SECONDS instead, see AutosaveService.
+     * The text file is only written when the collection is exported to it, see exportText.
+     *
+     * <p>Started as Main --batch [file], the program runs without the menu instead: it reads commands from
+     * the file, or from standard input if no file is given, and answers each with a line of JSON,
+     * see BatchCommands. The exit status is 0 if every command succeeded and 1 otherwise.
+     *
+     * <p>Started as Main --serve [port], the program serves the collection over HTTP instead, see MovieServer,
+     * until it is stopped with Ctrl-C or a termination signal, which saves the collection.
+     *
+     * @param args command-line arguments: none for the menu, --batch and an optional command file,
+     *             or --serve and an optional port
+     */
+    public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("--batch")) {
+            System.exit(runBatch(args.length > 1 ? args[1] : null));
+        }
+        if (args.length > 0 && args[0].equals("--serve")) {
+            if (!runServer(args.length > 1 ? args[1] : null)) {
+                System.exit(1);
+            }
+            return;
+        }
+
+        String title;
+        MovieJournal journal = openJournal();
+        MovieCollection collection = journal != null ? journal.getCollection() : loadCollection();
+        // held by this thread except while the console waits for the user, so the autosave only snapshots
+        // the collection between two changes; fair, so a waiting autosave gets it as soon as it is released
+        ReentrantLock collectionLock = new ReentrantLock(true);
+        collectionLock.lock();
+        MovieConsole console = new MovieConsole(System.in, System.out, collectionLock);
+        AutosaveService autosave = journal == null && AUTOSAVE_SECONDS > 0
+                ? AutosaveService.start(collection, collectionLock, SNAPSHOT_FILE,
+                        TimeUnit.SECONDS.toMillis(AUTOSAVE_SECONDS))
+                : null;
+        int choice = 0;
+
+        while (choice != 13) {
+            console.println("""
+                    \nChoose from the options below (enter a number from 1 to 14)\
+                    
+                    1. Create a new movie\
+                    
+                    2. Add a new character to a movie\
+                    
+                    3. Remove movie by year\
+                    
+                    4. Remove movie by title\
+                    
+                    5. Remove movie by character name\
+                    
+                    6. Remove character inside a movie\
+                    
+                    7. Display all movies\
+                    
+                    8. Display all characters\
+                    
+                    9. Display movies by year\
+                    
+                    10. Display a specific movie with characters\
+                    
+                    11. Edit a character in a movie\
+                    
+                    12. Edit a movie\
+                    
+                    13. Save & Exit\
+                    
+                    14. Export to the text file""");
+            try {
+                choice = console.nextInt();
+                console.nextLine();
+
+                switch (choice) {
+                    case 1:
+                        console.print("Enter the number of movies: ");
+                        int numberOfMovies = console.nextInt();
+                        console.nextLine();
+
+                        for (int i = 0; i < numberOfMovies; i++) {
+                            console.print("Enter movie title " + (i + 1) + ": ");
+                            title = console.nextLine();
+
+                            console.print("Enter year released: ");
+                            int yearReleased = console.nextInt();
+                            console.nextLine();
+
+                            MonsterMovie movie = new MonsterMovie(title, yearReleased);
+                            collection.addMovie(movie);
+                            console.println("\nMovie added successfully!");
+                        }
+                        console.displayMovies(collection);
+                        // sleep for 5 seconds
+                        console.pause(2000);
+                        break;
+                    case 2:
+                        console.print("Enter movie title you want the new character in: ");
+                        console.addCharacterToMovie(collection, console.nextLine());
+                        console.displayCharacters(collection);
+                        console.pause(5000);
+                        break;
+                    case 3:
+                        console.println("Enter a year to delete the movies made in that year:");
+                        // takes input to match year of a movie
+                        int year = console.nextInt();
+                        console.println("Removed movies from year " + year);
+                        collection.removeMovieByYear(year);
+                        console.nextLine();
+                        console.println("\nAfter removing movies from the year entered:");
+                        console.displayMovies(collection);
+                        console.pause(3000);
+                        break;
+                    case 4:
+                        console.print("Enter the movie name you want to delete: ");
+                        // takes input to match a title of a movie
+                        collection.removeMovieByTitle(console.nextLine());
+                        console.println("After removing movies from the title entered:");
+                        console.displayMovies(collection);
+                        console.pause(3000);
+                        break;
+                    case 5:
+                        console.print("Enter the character name to delete the movies that contain: ");
+                        // takes input to match character in movie(s)
+                        collection.removeMovieByCharacter(console.nextLine());
+                        console.println("After removing movies from the character entered:");
+                        console.displayMovies(collection);
+                        console.pause(3000);
+                        break;
+                    case 6:
+                        console.displayMovies(collection);
+                        console.print("Enter movie title: ");
+                        // takes input to match a title of a movie
+                        title = console.nextLine();
+                        console.removeCharacterInAMovie(collection, title);
+                        console.pause(5000);
+                        break;
+                    case 7:
+                        // displays all the movies
+                        console.displayMovies(collection);
+                        console.pause(3000);
+                        break;
+                    case 8:
+                        // displays all characters with detail
+                        console.displayCharacters(collection);
+                        console.pause(3000);
+                        break;
+                    case 9:
+                        console.println("Enter movie year: ");
+                        // displays movies by the year entered
+                        console.displayMoviesByYear(collection, console.nextInt());
+                        console.nextLine();
+                        console.pause(3000);
+                        break;
+                    case 10:
+                        console.println("Enter movie title: ");
+                        title = console.nextLine();
+                        console.displaySpecificCharacter(collection, title);
+                        if (collection.findMoviesByTitle(title).isEmpty()) {
+                            console.suggestTitles(collection, title);
+                        }
+                        console.pause(3000);
+                        break;
+                    case 11:
+                        console.displayMovies(collection);
+                        console.println("\nEnter movie title");
+                        title = console.nextLine();
+                        console.editCharacterInAMovie(collection, title);
+                        break;
+                    case 12:
+                        console.displayMovies(collection);
+                        console.println("Enter movie title");
+                        title = console.nextLine();
+                        console.editAMovie(collection, title);
+                        break;
+                    case 13:
+                        saveAndExit(journal, autosave, collection, console);
+                        break;
+                    case 14:
+                        if (exportText(journal, collection, SAVED_MOVIE_FILE)) {
+                            console.println("Collection exported to " + SAVED_MOVIE_FILE);
+                        }
+                        console.pause(2000);
+                        break;
+                    default:
+                }
+            } catch (InputMismatchException e) {
+                console.error("Invalid input. Please enter a number (1-14).");
+                console.next();
+            } catch (NoSuchElementException e) {
+                // the input ended, such as a script piped into the program, so there is nothing left to do
+                saveAndExit(journal, autosave, collection, console);
+            } catch (Exception e) {
+                console.error("An unexpected error occurred");
+            }
+        }
+    }
+
+    /**
+     * Saves the collection, by waiting for the journal, or for the autosave to write the last changes,
+     * or by writing a snapshot if there is neither, and exits the program.
+     *
+     * @param journal    the journal attached to the collection, or null
+     * @param autosave   the autosave of the collection, or null
+     * @param collection the collection to save
+     * @param console    the console to say goodbye on
+     */
+    private static void saveAndExit(MovieJournal journal, AutosaveService autosave, MovieCollection collection,
+                                    MovieConsole console) {
+        console.flush();
+        if (autosave != null) {
+            try {
+                autosave.close();
+            } catch (IOException e) {
+                System.err.println("Error saving movie collection");
+            }
+        } else {
+            save(journal, collection);
+        }
+        console.println("Exiting program. Goodbye!");
+        console.flush();
+        System.exit(0);
+    }
+
+    /**
+     * Saves the collection, by waiting for the journal or by writing a snapshot if there is no journal.
+     * If writing the journal failed, the collection is saved as a new snapshot with an empty journal instead,
+     * so the changes the journal could not write are not lost and the ones it did write are not replayed twice.
+     *
+     * @param journal    the journal attached to the collection, or null
+     * @param collection the collection to save
+     * @return true if the collection was saved
+     */
+    private static boolean save(MovieJournal journal, MovieCollection collection) {
+        try {
+            if (journal == null) {
+                MovieFiles.saveSnapshot(collection, SNAPSHOT_FILE);
+                return true;
+            }
+            try {
+                journal.close();
+            } catch (IOException e) {
+                System.err.println("Error writing the movie journal, saving a new snapshot instead");
+                MovieJournal.create(collection, SNAPSHOT_FILE, JOURNAL_FILE).close();
+            }
+            return true;
+        } catch (IOException e) {
+            System.err.println("Error saving movie collection");
+            return false;
+        }
+    }
+
+    /**
+     * Writes the collection to a text file in the SavedMovie format, see MovieFiles.saveMovie.
+     * When the file is the one the collection is imported from and the collection has a journal, the journal
+     * is synced first and the text file is given the time of the journal, so the next start recovers the
+     * collection from the journal instead of importing the same movies again.
+     *
+     * @param journal    the journal attached to the collection, or null
+     * @param collection the collection to export
+     * @param fileName   the text file to write
+     * @return true if the collection was exported
+     */
+    private static boolean exportText(MovieJournal journal, MovieCollection collection, String fileName) {
+        boolean journaled = false;
+        if (journal != null) {
+            try {
+                journal.sync();
+                journaled = true;
+            } catch (IOException e) {
+                // the failure was reported when it happened, and the text file is then newer than the journal
+            }
+        }
+        try {
+            MovieFiles.saveMovie(collection, fileName);
+            File exported = new File(fileName);
+            if (journaled && exported.getAbsoluteFile().equals(new File(SAVED_MOVIE_FILE).getAbsoluteFile())) {
+                exported.setLastModified(journaledTime());
+            }
+            return true;
+        } catch (IOException e) {
+            System.err.println("Error exporting movie collection to " + fileName);
+            return false;
+        }
+    }
+
+    /**
+     * Runs the commands of a file or of standard input against the collection and saves it, see BatchCommands.
+     * The answers go to standard output and every other message to standard error.
+     *
+     * @param commandFile the file holding the commands, or null to read them from standard input
+     * @return the exit status: 0 if every command succeeded and the collection was saved, 1 otherwise
+     */
+    private static int runBatch(String commandFile) {
+        MovieJournal journal = openJournal();
+        MovieCollection collection = journal != null ? journal.getCollection() : loadCollection();
+        PrintWriter out = new PrintWriter(new BufferedWriter(
+                new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16));
+        int failures;
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(
+                commandFile == null ? System.in : new FileInputStream(commandFile), StandardCharsets.UTF_8), 1 << 16)) {
+            failures = new BatchCommands(collection, out,
+                    fileName -> exportText(journal, collection, fileName == null ? SAVED_MOVIE_FILE : fileName))
+                    .run(in);
+        } catch (IOException e) {
+            System.err.println("Error reading commands");
+            failures = 1;
+        }
+        return save(journal, collection) && failures == 0 ? 0 : 1;
+    }
+
+    /**
+     * Starts serving the collection over HTTP, see MovieServer. The server runs on after this method returns,
+     * and the collection is saved once the program is asked to stop. Without a journal, the collection is also
+     * autosaved like in the interactive mode.
+     *
+     * @param portText the port to listen on, or null for DEFAULT_SERVER_PORT
+     * @return true if the server was started
+     */
+    private static boolean runServer(String portText) {
+        int port;
+        try {
+            port = portText == null ? DEFAULT_SERVER_PORT : Integer.parseInt(portText);
+        } catch (NumberFormatException e) {
+            System.err.println("Error: Port must be a number.");
+            return false;
+        }
+        MovieJournal journal = openJournal();
+        MovieCollection collection = journal != null ? journal.getCollection() : loadCollection();
+        ReentrantReadWriteLock collectionLock = new ReentrantReadWriteLock(true);
+        AutosaveService autosave = journal == null && AUTOSAVE_SECONDS > 0
+                ? AutosaveService.start(collection, collectionLock.writeLock(), SNAPSHOT_FILE,
+                        TimeUnit.SECONDS.toMillis(AUTOSAVE_SECONDS))
+                : null;
+        MovieServer server = new MovieServer(collection, collectionLock);
+        try {
+            server.start(new InetSocketAddress(SERVER_HOST, port));
+        } catch (IOException e) {
+            System.err.println("Error starting the server on " + SERVER_HOST + ":" + port);
+            return false;
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop();
+            if (autosave != null) {
+                try {
+                    autosave.close();
+                } catch (IOException e) {
+                    System.err.println("Error saving movie collection");
+                }
+            } else {
+                save(journal, collection);
+            }
+        }, "movie-server-shutdown"));
+        System.err.println("Serving the movie collection on http://" + SERVER_HOST + ":" + server.getPort() + "/");
+        return true;
+    }
+
+    /**
+     * Recovers the movie collection from the snapshot and the journal, or imports it from the text file
+     * when the text file has been changed since the collection was last journaled.
+     *
+     * @return the journal attached to the collection, or null if the journal could not be opened
+     */
+    private static MovieJournal openJournal() {
+        File savedMovies = new File(SAVED_MOVIE_FILE);
+        long journaled = journaledTime();
+        MovieJournal journal;
+        try {
+            if (savedMovies.isFile() && savedMovies.lastModified() > journaled) {
+                if (journaled > 0) {
+                    warnTextNewer();
+                }
+                MovieCollection collection = new MovieCollection();
+                MovieFiles.readFromFile(collection, SAVED_MOVIE_FILE);
+                journal = MovieJournal.create(collection, SNAPSHOT_FILE, JOURNAL_FILE);
+            } else {
+                journal = MovieJournal.open(SNAPSHOT_FILE, JOURNAL_FILE);
+            }
+        } catch (IOException e) {
+            System.err.println("Error opening the movie journal, the collection will only be saved on exit");
+            return null;
+        }
+        // told right away rather than at exit, since from now on a crash loses every change
+        journal.setFailureHandler(e -> System.err.println(
+                "Error writing the movie journal, changes are no longer saved as they are made;"
+                        + " the collection will be saved to a new snapshot on exit"));
+        return journal;
+    }
+
+    /**
+     * Gets the time the collection was last saved to the snapshot or the journal.
+     *
+     * @return the time of the newer of the two files, or 0 if neither exists
+     */
+    private static long journaledTime() {
+        return Math.max(new File(SNAPSHOT_FILE).lastModified(), new File(JOURNAL_FILE).lastModified());
+    }
+
+    /**
+     * Warns that the text file is about to replace a saved collection, such as after the text file was edited
+     * by hand, so the changes made since the text file was last exported are not dropped without notice.
+     */
+    private static void warnTextNewer() {
+        System.err.println("Warning: " + SAVED_MOVIE_FILE + " is newer than the saved collection, importing it;"
+                + " changes saved since it was last exported are replaced");
+    }
+
+    /**
+     * Loads the movie collection from the binary snapshot, or imports it from the text file
+     * when there is no snapshot yet or the text file has been changed since the snapshot was saved.
+     *
+     * @return the loaded collection, empty if neither file could be read
+     */
+    private static MovieCollection loadCollection() {
+        File snapshot = new File(SNAPSHOT_FILE);
+        if (snapshot.isFile() && snapshot.lastModified() >= new File(SAVED_MOVIE_FILE).lastModified()) {
+            try {
+                return MovieFiles.readSnapshot(SNAPSHOT_FILE);
+            } catch (IOException e) {
+                System.err.println("Error reading snapshot, importing from file instead");
+            }
+        } else if (snapshot.isFile()) {
+            warnTextNewer();
+        }
+        MovieCollection collection = new MovieCollection();
+        try {
+            MovieFiles.readFromFile(collection, SAVED_MOVIE_FILE);
+        } catch (IOException e) {
+            System.err.println("Error reading from file");
+        }
+        return collection;
+    }
+}
\ No newline at end of file
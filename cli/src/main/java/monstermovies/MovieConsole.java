@@ -0,0 +1,368 @@
+package monstermovies;
+
+import java.io.BufferedWriter;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.InputMismatchException;
+import java.util.List;
+import java.util.Scanner;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Supplier;
+
+/**
+ * MovieConsole is the console side of the interactive program: it shows movies and characters and
+ * prompts the user for the details of a change, leaving the changes themselves to MovieCollection,
+ * MonsterMovie and HorrorCharacter.
+ *
+ * <p>Everything is written through one buffered PrintWriter, so a large listing is rendered with one
+ * flush instead of one console write per line. The output is flushed before reading input and before
+ * pausing, so the user always sees the prompt or the result.
+ *
+ * <p>The thread using the console holds the lock guarding the collection, except while it waits for the
+ * user: reading input and pausing release the lock, so an AutosaveService can save the collection meanwhile.
+ */
+final class MovieConsole {
+
+    private final Scanner scanner;
+    private final PrintWriter out;
+    private final Lock lock;
+
+    /**
+     * Constructs a MovieConsole reading from and writing to the given streams.
+     *
+     * @param in   the stream the user's input is read from
+     * @param out  the stream everything is shown on
+     * @param lock the lock guarding the collection, held by the thread using the console
+     */
+    MovieConsole(InputStream in, PrintStream out, Lock lock) {
+        this.scanner = new Scanner(in);
+        this.out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(out, out.charset()), 1 << 16));
+        this.lock = lock;
+    }
+
+    void println(String line) {
+        out.println(line);
+    }
+
+    void print(String text) {
+        out.print(text);
+    }
+
+    /**
+     * Shows an error message on standard error, after what was written so far so the two stay in order.
+     *
+     * @param message the message to show
+     */
+    void error(String message) {
+        out.flush();
+        System.err.println(message);
+    }
+
+    void flush() {
+        out.flush();
+    }
+
+    /**
+     * Shows what was written so far and waits, giving the user time to read it.
+     *
+     * @param millis the time to wait in milliseconds
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    void pause(long millis) throws InterruptedException {
+        out.flush();
+        lock.unlock();
+        try {
+            Thread.sleep(millis);
+        } finally {
+            lock.lock();
+        }
+    }
+
+    /**
+     * Reads the rest of the current input line.
+     *
+     * @return the line, without its line separator
+     */
+    String nextLine() {
+        return waitForUser(scanner::nextLine);
+    }
+
+    /**
+     * Reads a number from the input, leaving the rest of its line unread.
+     *
+     * @return the number
+     * @throws InputMismatchException if the next word is not a number
+     */
+    int nextInt() {
+        return waitForUser(scanner::nextInt);
+    }
+
+    /**
+     * Reads the next word of the input.
+     *
+     * @return the word
+     */
+    String next() {
+        return waitForUser(scanner::next);
+    }
+
+    /**
+     * Displays the title and release year of every movie in a catalog.
+     *
+     * @param catalog the movies to display
+     */
+    void displayMovies(MovieCatalog catalog) {
+        out.println("\nMovies in collection: ");
+        catalog.forEachMovieTitle((title, year) -> displayTitle(title, year));
+    }
+
+    /**
+     * Displays all characters in each movie of a catalog, together with the character type count and
+     * the most common vulnerability of the movie.
+     *
+     * @param catalog the movies to display
+     */
+    void displayCharacters(MovieCatalog catalog) {
+        catalog.forEachMovie(movie -> {
+            displaySortedCharacters(movie);
+            displayCharacterTypeCount(movie);
+            displayMostCommonVulnerability(movie);
+        });
+    }
+
+    /**
+     * Displays the movies of a catalog released in a specified year.
+     *
+     * @param catalog the movies to look in
+     * @param year    the release year to look for
+     */
+    void displayMoviesByYear(MovieCatalog catalog, int year) {
+        out.println("\nMovies in the Collection:");
+        for (MonsterMovie movie : catalog.findMoviesByYearRange(year, year)) {
+            displayTitle(movie.getTitle(), movie.getYearReleased());
+        }
+    }
+
+    /**
+     * Displays the characters of the movies of a catalog with the given title.
+     *
+     * @param catalog the movies to look in
+     * @param title   the title of the movie containing the character(s)
+     */
+    void displaySpecificCharacter(MovieCatalog catalog, String title) {
+        out.println("\nSorted Horror Characters in Movie: " + title.toUpperCase());
+        for (MonsterMovie movie : catalog.findMoviesByTitle(title)) {
+            for (HorrorCharacter character : movie.getHorrorCharacters()) {
+                out.println(character);
+            }
+        }
+    }
+
+    /**
+     * Prompts for new characters and adds them to every movie with the given title.
+     *
+     * @param collection   the collection holding the movie
+     * @param enteredTitle the title of the movie to which characters will be added
+     */
+    void addCharacterToMovie(MovieCollection collection, String enteredTitle) {
+        try {
+            print("Enter the number of horror characters: ");
+            int numCharacters = nextInt();
+            nextLine();
+
+            List<MonsterMovie> sameTitle = collection.findMoviesByTitle(enteredTitle);
+            for (MonsterMovie m : sameTitle) {
+                for (int x = 0; x < numCharacters; x++) {
+                    println("Enter details for character " + (x + 1) + ":");
+                    print("Name: ");
+                    String name = nextLine();
+
+                    print("Age (Must be bigger than 0): ");
+                    int age = nextInt();
+                    nextLine();
+
+                    print("Subtype: ");
+                    String subtype = nextLine();
+
+                    print("Rebirth year (Must be bigger than or equal to 1800): ");
+                    int rebirth = nextInt();
+                    nextLine();
+
+                    print("Vulnerability: ");
+                    String vulnerability = nextLine();
+
+                    if(rebirth >= 1800 && age > 0 && !name.isEmpty() && !subtype.isEmpty() && !vulnerability.isEmpty()) {
+                        HorrorCharacter character = new HorrorCharacter(name, age, subtype, rebirth, vulnerability);
+                        m.addCharacter(character);
+                    }
+                    else println("Error!!! Please be careful while adding a new character.");
+                }
+            }
+            if (sameTitle.isEmpty()) {
+                println("Movie with title \"" + enteredTitle + "\" not found.");
+                suggestTitles(collection, enteredTitle);
+                println("");
+            }
+        } catch (InputMismatchException e) {
+            error("Invalid input format. Please enter numbers where required.");
+        } catch (Exception e) {
+            error("An unexpected error occurred while adding characters");
+        }
+    }
+
+    /**
+     * Shows the characters of the movies with the given title and removes the one the user names.
+     *
+     * @param collection   the collection holding the movie
+     * @param enteredTitle the title of the movie containing the character to remove
+     */
+    void removeCharacterInAMovie(MovieCollection collection, String enteredTitle) {
+        if (enteredTitle.isEmpty()) {
+            println("Error: Movie name cannot be null/empty.");
+            return;
+        }
+        if (collection.findMoviesByTitle(enteredTitle).isEmpty()) {
+            suggestTitles(collection, enteredTitle);
+            return;
+        }
+        displaySpecificCharacter(collection, enteredTitle);
+        print("Enter the character name to delete character: ");
+        collection.removeCharacterInAMovie(enteredTitle, next());
+    }
+
+    /**
+     * Prompts for a new title and release year for every movie with the given title.
+     *
+     * @param collection   the collection holding the movie
+     * @param enteredTitle the title of the movie
+     */
+    void editAMovie(MovieCollection collection, String enteredTitle) {
+        List<MonsterMovie> sameTitle = collection.findMoviesByTitle(enteredTitle);
+        if (sameTitle.isEmpty()) {
+            suggestTitles(collection, enteredTitle);
+        }
+        for(MonsterMovie movie : sameTitle) {
+            println("\nEditing movie: " + movie.getTitle().toUpperCase() + " || Year Released: " + movie.getYearReleased());
+            println("Enter new movie title to change title (press enter if you want no changes): ");
+            String newTitle = nextLine();
+            if(!newTitle.isEmpty()) {
+                movie.setTitle(newTitle);
+            }
+            println("Enter new movie year released to change year " +
+                    "(movie year must be bigger than or equal to 1895): ");
+            int newYear = nextInt();
+            if(newYear >= 1895) {
+                movie.setYearReleased(newYear);
+            }
+            nextLine();
+        }
+    }
+
+    /**
+     * Prompts for a character of the movies with the given title and for its new attributes.
+     *
+     * @param collection   the collection holding the movie
+     * @param enteredTitle the title of the movie containing the character to edit
+     */
+    void editCharacterInAMovie(MovieCollection collection, String enteredTitle) {
+        List<MonsterMovie> sameTitle = collection.findMoviesByTitle(enteredTitle);
+        if (sameTitle.isEmpty()) {
+            suggestTitles(collection, enteredTitle);
+        }
+        for (MonsterMovie movie : sameTitle) {
+            displaySpecificCharacter(collection, enteredTitle);
+            print("Enter the character name to edit character (press enter if you want no changes): ");
+            String key = MovieCollection.titleKey(nextLine());
+            // copy the characters, renaming one moves it to another place in the movie's list
+            for (HorrorCharacter character : new ArrayList<>(movie.getHorrorCharacters())) {
+                if (MovieCollection.titleKey(character.getName()).equals(key)) {
+                    println("\nEditing character: " + character.getName());
+                    println("Enter character name to change name (press enter if you want no changes): ");
+                    String newName = nextLine();
+                    if(!newName.isEmpty()) {
+                        character.setName(newName);
+                    }
+                    println("Enter character age to change age (enter 0 for no changes): ");
+                    int newAge = nextInt();
+                    if(newAge > 0){
+                        character.setAge(newAge);
+                    }
+                    nextLine();
+                    println("Enter character subtype to change subtype (press enter if you want no changes): ");
+                    String newSubtype = nextLine();
+                    if(!newSubtype.isEmpty()) {
+                        character.setSubtype(newSubtype);
+                    }
+                    println("Enter character rebirth to change rebirth (rebirth must be bigger than or equal to 1800): ");
+                    int newRebirth = nextInt();
+                    if(newRebirth >= 1800) {
+                        character.setRebirth(newRebirth);
+                    }
+                    nextLine();
+                    println("Enter character vulnerability to change vulnerability (press enter if you want no changes): ");
+                    String newVulnerability = nextLine();
+                    if(!newVulnerability.isEmpty()) {
+                        character.setVulnerability(newVulnerability);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Shows the titles of the collection closest to a title that was not found, if there are any.
+     *
+     * @param collection   the collection to look in
+     * @param enteredTitle the title as the user typed it
+     */
+    void suggestTitles(MovieCollection collection, String enteredTitle) {
+        List<String> similar = collection.searchTitles(enteredTitle, 3);
+        if (!similar.isEmpty()) {
+            println("Did you mean: " + String.join(", ", similar) + "?");
+        }
+    }
+
+    /**
+     * Shows what was written so far and reads from the input without holding the collection lock.
+     */
+    private <T> T waitForUser(Supplier<T> read) {
+        out.flush();
+        lock.unlock();
+        try {
+            return read.get();
+        } finally {
+            lock.lock();
+        }
+    }
+
+    private void displayTitle(String title, int year) {
+        out.println("Title: " + title + " || Year Released: " + year);
+    }
+
+    /**
+     * Displays the characters in a movie, which keeps them sorted by their natural order.
+     */
+    private void displaySortedCharacters(MonsterMovie movie) {
+        out.println("\nSorted Horror Characters in Movie: " + movie.getTitle().toUpperCase());
+        for (HorrorCharacter character : movie.getHorrorCharacters()) {
+            out.println(character);
+        }
+    }
+
+    private void displayCharacterTypeCount(MonsterMovie movie) {
+        out.println("Character types and counts: ");
+        movie.forEachSubtypeCount((subtype, count) -> out.println(subtype + " " + count));
+    }
+
+    /**
+     * Displays the most common vulnerability of a movie, or a message if no vulnerability is shared.
+     */
+    private void displayMostCommonVulnerability(MonsterMovie movie) {
+        out.println("Most common Vulnerability: ");
+        String mostCommon = movie.getMostCommonVulnerability();
+        out.println(mostCommon != null ? mostCommon : "No common vulnerability found!!!");
+    }
+}
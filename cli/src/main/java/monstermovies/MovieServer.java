@@ -0,0 +1,450 @@
+package monstermovies;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+
+/**
+ * MovieServer serves a MovieCollection over HTTP with JSON answers (Main --serve), so other programs can
+ * query and change the collection without the menu. It runs on the HTTP server of the JDK, with a new
+ * virtual thread for every request, so thousands of requests can wait on slow clients at once without
+ * a thread pool to size.
+ *
+ * <p>The endpoints take their parameters from the query string, or from a form-encoded body for POST
+ * and DELETE:
+ * <ul>
+ *     <li>GET /movies, every movie with its characters</li>
+ *     <li>GET /movies/by-year?year= or ?from=&amp;to=, the movies released in a year or a range of years</li>
+ *     <li>GET /movies/by-title?title=, the movies with a title</li>
+ *     <li>GET /movies/by-character?name=, the movies featuring a character</li>
+ *     <li>GET /stats?k=, the number of movies and characters and the k most common subtypes and vulnerabilities</li>
+ *     <li>POST /movies?title=&amp;year=, adding a movie</li>
+ *     <li>POST /characters?title=&amp;name=&amp;age=&amp;subtype=&amp;rebirth=&amp;vulnerability=, adding a
+ *     character to the first movie with the title</li>
+ *     <li>DELETE /movies?title=, ?year= or ?character=, removing the movies with a title, from a year or
+ *     featuring a character</li>
+ *     <li>DELETE /characters?title=&amp;name=, removing a character from the movies with the title</li>
+ * </ul>
+ * Titles and names are matched ignoring case, like the menu and BatchCommands. Every answer is a JSON
+ * object with an ok flag and either the result or an error message, for example
+ * {"ok":true,"removed":2} or {"ok":false,"error":"year must be a number"} with status 400.
+ *
+ * <p>MovieCollection is not safe for use by several threads at once, so the requests share a read-write
+ * lock: lookups hold the read lock, changes and snapshots the write lock. No lock is held while an answer
+ * is written, so a slow client never holds up the others. The listing of every movie is written from a
+ * MovieSnapshot, which is only copied again after a change, and lookups copy the movies they found before
+ * releasing the read lock. Answers are streamed in chunks as the movies are written, so a large listing
+ * is never held in memory as a whole.
+ */
+final class MovieServer {
+
+    /**
+     * The largest form-encoded request body accepted, in bytes.
+     */
+    private static final int MAX_BODY = 64 * 1024;
+
+    /**
+     * The number of pending connections the operating system may queue before the server accepts them.
+     */
+    private static final int BACKLOG = 4096;
+
+    /**
+     * The size of the buffer an answer is written through, in characters.
+     */
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    private final MovieCollection collection;
+    private final Lock readLock;
+    private final Lock writeLock;
+    private HttpServer server;
+    private ExecutorService executor;
+
+    /**
+     * Constructs a MovieServer serving a collection.
+     *
+     * @param collection the collection to serve
+     * @param lock       the lock guarding the collection, shared with anything else using it
+     */
+    MovieServer(MovieCollection collection, ReadWriteLock lock) {
+        this.collection = collection;
+        this.readLock = lock.readLock();
+        this.writeLock = lock.writeLock();
+    }
+
+    /**
+     * Starts serving requests in the background.
+     *
+     * @param address the address to listen on, port 0 for any free port
+     * @throws IOException if the server cannot listen on the address
+     */
+    void start(InetSocketAddress address) throws IOException {
+        // the JDK server writes the headers and the body of an answer separately, and without TCP_NODELAY the
+        // body waits for the client to acknowledge the headers, about 40 ms per request; read once, by the
+        // first server created
+        System.getProperties().putIfAbsent("sun.net.httpserver.nodelay", "true");
+        server = HttpServer.create(address, BACKLOG);
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext("/movies", exchange -> handle(exchange, "/movies", this::movies));
+        server.createContext("/movies/by-year", exchange -> handle(exchange, "/movies/by-year", this::byYear));
+        server.createContext("/movies/by-title", exchange -> handle(exchange, "/movies/by-title", this::byTitle));
+        server.createContext("/movies/by-character",
+                exchange -> handle(exchange, "/movies/by-character", this::byCharacter));
+        server.createContext("/characters", exchange -> handle(exchange, "/characters", this::characters));
+        server.createContext("/stats", exchange -> handle(exchange, "/stats", this::stats));
+        server.start();
+    }
+
+    /**
+     * Gets the port the server listens on.
+     *
+     * @return the port
+     */
+    int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stops accepting requests, gives the running requests up to a second to finish and stops the server.
+     */
+    void stop() {
+        server.stop(1);
+        executor.close();
+    }
+
+    /**
+     * Runs the endpoint of a request and writes its answer, or an error answer if the endpoint rejected it.
+     */
+    private void handle(HttpExchange exchange, String path, Endpoint endpoint) {
+        try (exchange) {
+            try {
+                if (!exchange.getRequestURI().getPath().equals(path)) {
+                    throw new RequestException(404, "no such endpoint");
+                }
+                endpoint.answer(exchange, parameters(exchange));
+            } catch (RequestException e) {
+                send(exchange, e.status, error(e.getMessage()));
+            } catch (IllegalArgumentException e) {
+                send(exchange, 400, error(e.getMessage()));
+            }
+        } catch (IOException e) {
+            // the client went away, there is nobody left to answer
+        }
+    }
+
+    /**
+     * GET lists every movie, POST adds a movie and DELETE removes movies.
+     */
+    private void movies(HttpExchange exchange, Map<String, String> parameters) throws IOException {
+        switch (exchange.getRequestMethod()) {
+            case "GET" -> {
+                MovieSnapshot snapshot;
+                writeLock.lock();
+                try {
+                    snapshot = collection.snapshot();
+                } finally {
+                    writeLock.unlock();
+                }
+                sendMovies(exchange, snapshot.getMovies());
+            }
+            case "POST" -> {
+                MonsterMovie movie = new MonsterMovie(required(parameters, "title"), number(parameters, "year"));
+                writeLock.lock();
+                try {
+                    collection.addMovie(movie);
+                } finally {
+                    writeLock.unlock();
+                }
+                send(exchange, 201, ok());
+            }
+            case "DELETE" -> {
+                if (parameters.size() != 1) {
+                    throw new IllegalArgumentException("expected one of title, year or character");
+                }
+                int removed;
+                writeLock.lock();
+                try {
+                    if (parameters.containsKey("title")) {
+                        removed = collection.removeAllWithTitle(parameters.get("title"));
+                    } else if (parameters.containsKey("year")) {
+                        removed = collection.removeAllFromYear(number(parameters, "year"));
+                    } else if (parameters.containsKey("character")) {
+                        removed = collection.removeAllWithCharacter(parameters.get("character"));
+                    } else {
+                        throw new IllegalArgumentException("expected one of title, year or character");
+                    }
+                } finally {
+                    writeLock.unlock();
+                }
+                send(exchange, 200, ok().append(",\"removed\":").append(removed));
+            }
+            default -> throw methodNotAllowed();
+        }
+    }
+
+    private void byYear(HttpExchange exchange, Map<String, String> parameters) throws IOException {
+        allow(exchange, "GET");
+        int from;
+        int to;
+        if (parameters.containsKey("year")) {
+            from = number(parameters, "year");
+            to = from;
+        } else {
+            from = number(parameters, "from");
+            to = number(parameters, "to");
+        }
+        List<MonsterMovie> found;
+        readLock.lock();
+        try {
+            found = copies(collection.findMoviesByYearRange(from, to));
+        } finally {
+            readLock.unlock();
+        }
+        sendMovies(exchange, found);
+    }
+
+    private void byTitle(HttpExchange exchange, Map<String, String> parameters) throws IOException {
+        allow(exchange, "GET");
+        String title = required(parameters, "title");
+        List<MonsterMovie> found;
+        readLock.lock();
+        try {
+            found = copies(collection.findMoviesByTitle(title));
+        } finally {
+            readLock.unlock();
+        }
+        sendMovies(exchange, found);
+    }
+
+    private void byCharacter(HttpExchange exchange, Map<String, String> parameters) throws IOException {
+        allow(exchange, "GET");
+        String name = required(parameters, "name");
+        List<MonsterMovie> found;
+        readLock.lock();
+        try {
+            found = copies(collection.findMoviesByCharacter(name));
+        } finally {
+            readLock.unlock();
+        }
+        sendMovies(exchange, found);
+    }
+
+    /**
+     * POST adds a character to the first movie with a title and DELETE removes a character from every movie with it.
+     */
+    private void characters(HttpExchange exchange, Map<String, String> parameters) throws IOException {
+        switch (exchange.getRequestMethod()) {
+            case "POST" -> {
+                String title = required(parameters, "title");
+                // building the character checks every attribute before taking the lock
+                HorrorCharacter character = new HorrorCharacter(required(parameters, "name"),
+                        number(parameters, "age"), required(parameters, "subtype"),
+                        number(parameters, "rebirth"), required(parameters, "vulnerability"));
+                writeLock.lock();
+                try {
+                    if (collection.findMovie(title, 0) == null) {
+                        throw new RequestException(404, "movie not found");
+                    }
+                    if (!collection.addCharacters(title, List.of(character))) {
+                        throw new IllegalArgumentException("character rejected");
+                    }
+                } finally {
+                    writeLock.unlock();
+                }
+                send(exchange, 201, ok());
+            }
+            case "DELETE" -> {
+                String title = required(parameters, "title");
+                String name = required(parameters, "name");
+                int removed;
+                writeLock.lock();
+                try {
+                    removed = collection.removeCharacterInAMovie(title, name);
+                } finally {
+                    writeLock.unlock();
+                }
+                send(exchange, 200, ok().append(",\"removed\":").append(removed));
+            }
+            default -> throw methodNotAllowed();
+        }
+    }
+
+    private void stats(HttpExchange exchange, Map<String, String> parameters) throws IOException {
+        allow(exchange, "GET");
+        int k = parameters.containsKey("k") ? number(parameters, "k") : 5;
+        StringBuilder answer = ok();
+        readLock.lock();
+        try {
+            answer.append(",\"movies\":").append(collection.getMovies().size())
+                    .append(",\"characters\":").append(collection.getCharacterCount()).append(",\"subtypes\":");
+            counts(answer, collection.getTopSubtypes(k));
+            answer.append(",\"vulnerabilities\":");
+            counts(answer, collection.getTopVulnerabilities(k));
+        } finally {
+            readLock.unlock();
+        }
+        send(exchange, 200, answer);
+    }
+
+    private static List<MonsterMovie> copies(List<MonsterMovie> movies) {
+        List<MonsterMovie> copies = new ArrayList<>(movies.size());
+        for (MonsterMovie movie : movies) {
+            copies.add(movie.copy());
+        }
+        return copies;
+    }
+
+    /**
+     * Streams movies as the answer, writing them one at a time through a small buffer in chunks.
+     * The movies must not change while they are written.
+     */
+    private static void sendMovies(HttpExchange exchange, Collection<MonsterMovie> movies) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(200, 0);
+        try (Writer out = new BufferedWriter(
+                new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8), BUFFER_SIZE)) {
+            StringBuilder movie = ok().append(",\"count\":").append(movies.size()).append(",\"movies\":[");
+            String separator = "";
+            for (MonsterMovie m : movies) {
+                movie.append(separator);
+                JsonText.movie(movie, m);
+                out.append(movie);
+                movie.setLength(0);
+                separator = ",";
+            }
+            out.append(movie).append("]}");
+        }
+    }
+
+    /**
+     * Sends a small answer, closing the JSON object started by ok or error.
+     */
+    private static void send(HttpExchange exchange, int status, StringBuilder answer) throws IOException {
+        byte[] body = answer.append('}').toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        exchange.getResponseBody().write(body);
+    }
+
+    private static StringBuilder ok() {
+        return new StringBuilder(64).append("{\"ok\":true");
+    }
+
+    private static StringBuilder error(String message) {
+        StringBuilder answer = new StringBuilder(64).append("{\"ok\":false,\"error\":");
+        JsonText.quote(answer, message);
+        return answer;
+    }
+
+    /**
+     * Appends counted values as a JSON object, most common first.
+     */
+    private static void counts(StringBuilder answer, List<Map.Entry<String, Integer>> counts) {
+        answer.append('{');
+        String separator = "";
+        for (Map.Entry<String, Integer> count : counts) {
+            answer.append(separator);
+            JsonText.quote(answer, count.getKey());
+            answer.append(':').append(count.getValue());
+            separator = ",";
+        }
+        answer.append('}');
+    }
+
+    /**
+     * Reads the parameters of the query string and, for POST and DELETE, of a form-encoded body.
+     *
+     * @throws RequestException if the body is too large
+     * @throws IllegalArgumentException if a parameter is not properly encoded
+     */
+    private static Map<String, String> parameters(HttpExchange exchange) throws IOException {
+        Map<String, String> parameters = new HashMap<>();
+        decode(exchange.getRequestURI().getRawQuery(), parameters);
+        String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+        if (!exchange.getRequestMethod().equals("GET") && contentType != null
+                && contentType.startsWith("application/x-www-form-urlencoded")) {
+            byte[] body = exchange.getRequestBody().readNBytes(MAX_BODY + 1);
+            if (body.length > MAX_BODY) {
+                throw new RequestException(413, "request body larger than " + MAX_BODY + " bytes");
+            }
+            decode(new String(body, StandardCharsets.UTF_8), parameters);
+        }
+        return parameters;
+    }
+
+    private static void decode(String form, Map<String, String> parameters) {
+        if (form == null || form.isEmpty()) {
+            return;
+        }
+        for (String pair : form.split("&")) {
+            int equals = pair.indexOf('=');
+            String name = equals < 0 ? pair : pair.substring(0, equals);
+            String value = equals < 0 ? "" : pair.substring(equals + 1);
+            parameters.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+    }
+
+    private static String required(Map<String, String> parameters, String name) {
+        String value = parameters.get(name);
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException("missing parameter " + name);
+        }
+        return value;
+    }
+
+    private static int number(Map<String, String> parameters, String name) {
+        try {
+            return Integer.parseInt(required(parameters, name));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " must be a number");
+        }
+    }
+
+    private static void allow(HttpExchange exchange, String method) {
+        if (!exchange.getRequestMethod().equals(method)) {
+            throw methodNotAllowed();
+        }
+    }
+
+    private static RequestException methodNotAllowed() {
+        return new RequestException(405, "method not allowed");
+    }
+
+    /**
+     * The work of one endpoint: answering a request from its parameters.
+     */
+    @FunctionalInterface
+    private interface Endpoint {
+        void answer(HttpExchange exchange, Map<String, String> parameters) throws IOException;
+    }
+
+    /**
+     * Rejects a request with an HTTP status other than 400 Bad Request.
+     */
+    private static final class RequestException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final int status;
+
+        private RequestException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package monstermovies;
+
+/**
+ * CollectionJournal is what a MovieCollection records its changes to, see MovieCollection.setJournal.
+ * It lets the collection engine report every change without depending on how the changes are stored;
+ * MovieJournal in the persistence module writes them to a write-ahead journal file.
+ *
+ * <p>Movies are identified by their title and their position among the movies with that title
+ * (see MovieCollection.findMovie), and characters by their attributes from before the change.
+ */
+abstract class CollectionJournal {
+
+    /**
+     * Records that a movie and its characters were added.
+     *
+     * @param movie the added movie
+     */
+    abstract void movieAdded(MonsterMovie movie);
+
+    /**
+     * Records that a character was added to a movie.
+     *
+     * @param title     the title of the movie
+     * @param ordinal   the position of the movie among the movies with that title
+     * @param character the added character
+     */
+    abstract void characterAdded(String title, int ordinal, HorrorCharacter character);
+
+    /**
+     * Records that a character was removed from a movie.
+     *
+     * @param title     the title of the movie
+     * @param ordinal   the position of the movie among the movies with that title
+     * @param character the removed character
+     */
+    abstract void characterRemoved(String title, int ordinal, HorrorCharacter character);
+
+    /**
+     * Records that an attribute of a character changed.
+     *
+     * @param title     the title of the movie
+     * @param ordinal   the position of the movie among the movies with that title
+     * @param previous  a copy of the character from before the change
+     * @param character the changed character
+     */
+    abstract void characterUpdated(String title, int ordinal, HorrorCharacter previous, HorrorCharacter character);
+
+    /**
+     * Records that the title or release year of a movie changed.
+     *
+     * @param previousTitle the title of the movie before the change
+     * @param ordinal       the position of the movie among the movies with the previous title
+     * @param title         the new title
+     * @param yearReleased  the new release year
+     */
+    abstract void movieUpdated(String previousTitle, int ordinal, String title, int yearReleased);
+
+    /**
+     * Records that every movie with a title was removed.
+     *
+     * @param title the title, ignoring case
+     */
+    abstract void moviesRemovedByTitle(String title);
+
+    /**
+     * Records that every movie released in a year was removed.
+     *
+     * @param year the release year
+     */
+    abstract void moviesRemovedByYear(int year);
+
+    /**
+     * Records that every movie featuring a character was removed.
+     *
+     * @param characterName the name of the character, ignoring case
+     */
+    abstract void moviesRemovedByCharacter(String characterName);
+
+    /**
+     * Records that one movie was removed.
+     *
+     * @param title   the title of the movie
+     * @param ordinal the position of the movie among the movies with that title
+     */
+    abstract void movieRemoved(String title, int ordinal);
+
+    /**
+     * Starts a batch: the changes recorded until the matching endBatch are kept or lost together.
+     * Batches may nest.
+     */
+    abstract void beginBatch();
+
+    /**
+     * Ends a batch started by beginBatch.
+     */
+    abstract void endBatch();
+}
@@ -0,0 +1,279 @@
+package monstermovies;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * ColumnarMovieCatalog is a read-only MovieCatalog that stores its characters column by column in
+ * primitive arrays instead of as HorrorCharacter objects, for analytics over very large catalogs.
+ *
+ * <p>Each character attribute is one array indexed by character, with subtypes and vulnerabilities
+ * dictionary-coded into ints, and the characters of a movie occupy one contiguous range given by
+ * the movie's entry in an offsets array. Scans such as {@link #averageAgeBySubtype()} or
+ * {@link #countRebornBefore(int)} walk those arrays sequentially, without boxing or following a
+ * pointer per character. MonsterMovie objects are only built for the movies a query returns,
+ * like MappedMovieCatalog does.
+ *
+ * <p>The catalog is a copy taken from a MovieCollection and does not follow later changes to it.
+ * It is immutable, so it can be queried from several threads at once.
+ */
+public class ColumnarMovieCatalog implements MovieCatalog {
+
+    // movie columns, indexed by movie in the order of the source collection
+    private final String[] titles;
+    private final int[] years;
+    // the characters of movie m are those from offsets[m] up to, not including, offsets[m + 1]
+    private final int[] offsets;
+    // the movies ordered by release year, movies of the same year in collection order
+    private final int[] moviesByYear;
+    // keys are normalized titles (see MovieCollection.titleKey), values are the movies with that title
+    private final Map<String, int[]> moviesByTitle;
+
+    // character columns, indexed by character, the characters of each movie sorted by name
+    private final String[] names;
+    private final int[] ages;
+    private final int[] rebirths;
+    private final int[] subtypeCodes;
+    private final int[] vulnerabilityCodes;
+    // the dictionaries the subtype and vulnerability codes refer to
+    private final SymbolTable subtypes;
+    private final SymbolTable vulnerabilities;
+
+    private ColumnarMovieCatalog(Collection<MonsterMovie> movies) {
+        int movieCount = movies.size();
+        int characterCount = 0;
+        for (MonsterMovie movie : movies) {
+            characterCount += movie.getHorrorCharacters().size();
+        }
+        titles = new String[movieCount];
+        years = new int[movieCount];
+        offsets = new int[movieCount + 1];
+        names = new String[characterCount];
+        ages = new int[characterCount];
+        rebirths = new int[characterCount];
+        subtypeCodes = new int[characterCount];
+        vulnerabilityCodes = new int[characterCount];
+        subtypes = new SymbolTable("subtypes", Integer.MAX_VALUE);
+        vulnerabilities = new SymbolTable("vulnerabilities", Integer.MAX_VALUE);
+
+        Map<String, List<Integer>> sameTitle = new HashMap<>();
+        int m = 0;
+        int c = 0;
+        for (MonsterMovie movie : movies) {
+            titles[m] = movie.getTitle();
+            years[m] = movie.getYearReleased();
+            offsets[m] = c;
+            sameTitle.computeIfAbsent(MovieCollection.titleKey(movie.getTitle()), key -> new ArrayList<>()).add(m);
+            for (HorrorCharacter character : movie.getHorrorCharacters()) {
+                names[c] = character.getName();
+                ages[c] = character.getAge();
+                rebirths[c] = character.getRebirth();
+                subtypeCodes[c] = subtypes.code(character.getSubtype());
+                vulnerabilityCodes[c] = vulnerabilities.code(character.getVulnerability());
+                c++;
+            }
+            m++;
+        }
+        offsets[movieCount] = c;
+
+        moviesByTitle = HashMap.newHashMap(sameTitle.size());
+        for (Map.Entry<String, List<Integer>> entry : sameTitle.entrySet()) {
+            moviesByTitle.put(entry.getKey(), entry.getValue().stream().mapToInt(Integer::intValue).toArray());
+        }
+        // a stable sort, so movies of the same year keep their collection order
+        moviesByYear = IntStream.range(0, movieCount).boxed()
+                .sorted(Comparator.comparingInt(movie -> years[movie]))
+                .mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Copies the movies of a collection into a new columnar catalog.
+     *
+     * @param collection the collection to copy
+     * @return the catalog holding the movies of the collection, in the same order
+     */
+    public static ColumnarMovieCatalog of(MovieCollection collection) {
+        return new ColumnarMovieCatalog(collection.getMovies());
+    }
+
+    /**
+     * Gets the number of movies in the catalog.
+     *
+     * @return the number of movies
+     */
+    public int getMovieCount() {
+        return titles.length;
+    }
+
+    /**
+     * Gets the number of characters in the catalog.
+     *
+     * @return the number of characters
+     */
+    public int getCharacterCount() {
+        return names.length;
+    }
+
+    /**
+     * Computes the average age of the characters of each subtype in one pass over the age and subtype columns.
+     *
+     * @return the average age per subtype, in the order the subtypes first appear in the catalog
+     */
+    public Map<String, Double> averageAgeBySubtype() {
+        long[] sums = new long[subtypes.size()];
+        int[] counts = new int[subtypes.size()];
+        for (int c = 0; c < ages.length; c++) {
+            sums[subtypeCodes[c]] += ages[c];
+            counts[subtypeCodes[c]]++;
+        }
+        Map<String, Double> averages = LinkedHashMap.newLinkedHashMap(sums.length);
+        for (int code = 0; code < sums.length; code++) {
+            averages.put(subtypes.symbol(code), (double) sums[code] / counts[code]);
+        }
+        return averages;
+    }
+
+    /**
+     * Counts the characters of each vulnerability in one pass over the vulnerability column.
+     *
+     * @return the number of characters per vulnerability, in the order the vulnerabilities first appear
+     */
+    public Map<String, Integer> countByVulnerability() {
+        int[] counts = new int[vulnerabilities.size()];
+        for (int code : vulnerabilityCodes) {
+            counts[code]++;
+        }
+        Map<String, Integer> byVulnerability = LinkedHashMap.newLinkedHashMap(counts.length);
+        for (int code = 0; code < counts.length; code++) {
+            byVulnerability.put(vulnerabilities.symbol(code), counts[code]);
+        }
+        return byVulnerability;
+    }
+
+    /**
+     * Counts the characters reborn before a given year in one pass over the rebirth column.
+     *
+     * @param year the first rebirth year not counted
+     * @return the number of characters with a rebirth year before the given year
+     */
+    public int countRebornBefore(int year) {
+        int count = 0;
+        for (int rebirth : rebirths) {
+            if (rebirth < year) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Performs an action for the title and release year of every movie, reading only the title and year columns.
+     *
+     * @param action the action to perform, given the title and the release year
+     */
+    @Override
+    public void forEachMovieTitle(ObjIntConsumer<String> action) {
+        for (int m = 0; m < titles.length; m++) {
+            action.accept(titles[m], years[m]);
+        }
+    }
+
+    /**
+     * Performs an action for every movie, building one movie at a time.
+     *
+     * @param action the action to perform
+     */
+    @Override
+    public void forEachMovie(Consumer<MonsterMovie> action) {
+        for (int m = 0; m < titles.length; m++) {
+            action.accept(buildMovie(m));
+        }
+    }
+
+    /**
+     * Finds the movies with the given title, ignoring case, through the title index.
+     *
+     * @param title the title to look up
+     * @return new MonsterMovie objects for the movies with the title, or an empty list if there are none
+     */
+    @Override
+    public List<MonsterMovie> findMoviesByTitle(String title) {
+        List<MonsterMovie> found = new ArrayList<>();
+        for (int m : moviesByTitle.getOrDefault(MovieCollection.titleKey(title), new int[0])) {
+            found.add(buildMovie(m));
+        }
+        return found;
+    }
+
+    /**
+     * Finds the movies released between two years, both inclusive, ordered by release year.
+     *
+     * @param fromYear the first release year of the range
+     * @param toYear   the last release year of the range
+     * @return new MonsterMovie objects for the movies released in the range, or an empty list if there are none
+     */
+    @Override
+    public List<MonsterMovie> findMoviesByYearRange(int fromYear, int toYear) {
+        List<MonsterMovie> found = new ArrayList<>();
+        for (int i = firstFromYear(fromYear); i < moviesByYear.length && years[moviesByYear[i]] <= toYear; i++) {
+            found.add(buildMovie(moviesByYear[i]));
+        }
+        return found;
+    }
+
+    /**
+     * Finds the movies featuring a character with the given name, ignoring case, by scanning the name column.
+     *
+     * @param characterName the name of the character to look up
+     * @return new MonsterMovie objects for the movies featuring the character, or an empty list if there are none
+     */
+    @Override
+    public List<MonsterMovie> findMoviesByCharacter(String characterName) {
+        String key = MovieCollection.titleKey(characterName);
+        List<MonsterMovie> found = new ArrayList<>();
+        for (int m = 0; m < titles.length; m++) {
+            for (int c = offsets[m]; c < offsets[m + 1]; c++) {
+                if (MovieCollection.titleKey(names[c]).equals(key)) {
+                    found.add(buildMovie(m));
+                    break;
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Finds the position in the year order of the first movie released in or after a year.
+     */
+    private int firstFromYear(int year) {
+        int low = 0;
+        int high = moviesByYear.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (years[moviesByYear[middle]] < year) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Builds a MonsterMovie holding a movie and its characters, not attached to any collection.
+     */
+    private MonsterMovie buildMovie(int m) {
+        MonsterMovie movie = new MonsterMovie(titles[m], years[m], offsets[m + 1] - offsets[m]);
+        for (int c = offsets[m]; c < offsets[m + 1]; c++) {
+            movie.addCharacter(buildCharacter(c));
+        }
+        return movie;
+    }
+
+    private HorrorCharacter buildCharacter(int c) {
+        return new HorrorCharacter(names[c], ages[c], subtypes.symbol(subtypeCodes[c]), rebirths[c],
+                vulnerabilities.symbol(vulnerabilityCodes[c]));
+    }
+}
@@ -0,0 +1,501 @@
+package monstermovies;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * ConcurrentMovieCollection is a thread-safe collection of MonsterMovie objects that many threads
+ * can query and change at once, such as the threads serving requests.
+ *
+ * <p>The movies are kept in concurrent maps, so queries never take a lock on the collection.
+ * The contents of each movie are guarded by one of a fixed set of StampedLocks, picked by the movie:
+ * queries copy a movie under an optimistic read and only fall back to a read lock when a writer
+ * interfered, and changes to the characters of different movies proceed in parallel.
+ * Adding, removing, renaming and re-dating movies change several indexes and are serialized
+ * with each other.
+ *
+ * <p>The collection owns its movies and never hands them out: every query returns detached copies,
+ * and movies are changed through the methods of this class. Queries that visit several movies are
+ * weakly consistent, each movie is copied in a consistent state but changes made while the query
+ * runs may or may not be seen.
+ */
+public class ConcurrentMovieCollection implements MovieCatalog {
+
+    /**
+     * The number of locks guarding the contents of the movies, a power of two.
+     */
+    private static final int STRIPES = 64;
+
+    // keys are the sequence numbers given to the movies when added, so iteration follows insertion order
+    private final ConcurrentNavigableMap<Long, MonsterMovie> movies = new ConcurrentSkipListMap<>();
+    // keys are release years in ascending order, values are the movies released that year in insertion order
+    private final ConcurrentNavigableMap<Integer, ConcurrentNavigableMap<Long, MonsterMovie>> moviesByYear =
+            new ConcurrentSkipListMap<>();
+    // keys are normalized titles (see MovieCollection.titleKey), values are the movies sharing the title
+    private final ConcurrentMap<String, ConcurrentNavigableMap<Long, MonsterMovie>> moviesByTitle =
+            new ConcurrentHashMap<>();
+    // keys are normalized character names, values map the sequence of each movie featuring the name
+    // to how many of its characters have that name
+    private final ConcurrentMap<String, ConcurrentNavigableMap<Long, Integer>> moviesByCharacter =
+            new ConcurrentHashMap<>();
+    // guard the contents of the movies, a movie uses the stripe picked by its sequence
+    private final StampedLock[] stripes = new StampedLock[STRIPES];
+    // serializes the changes that move movies between the year and title indexes
+    private final ReentrantLock structureLock = new ReentrantLock();
+    // keeps the indexes in sync when a movie of the collection or one of its characters changes
+    private final MovieListener indexUpdater = new IndexUpdater();
+    // the sequence given to the next movie added, only changed while holding structureLock
+    private long nextSequence;
+
+    /**
+     * Constructs an empty concurrent movie collection.
+     */
+    public ConcurrentMovieCollection() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new StampedLock();
+        }
+    }
+
+    /**
+     * Adds a movie to the collection, which takes ownership of it.
+     * The movie must not be changed directly afterwards, only through this collection.
+     *
+     * @param movie the MonsterMovie object to add
+     * @return true if the movie was added, false if it is null or already belongs to a collection
+     */
+    public boolean addMovie(MonsterMovie movie) {
+        if (movie == null) {
+            System.err.println("Error: Cannot add a null movie.");
+            return false;
+        }
+        structureLock.lock();
+        try {
+            if (movie.getListener() != null) {
+                System.err.println("Error: Movie already belongs to a collection.");
+                return false;
+            }
+            long sequence = nextSequence++;
+            movie.setSequence(sequence);
+            for (HorrorCharacter character : movie.getHorrorCharacters()) {
+                addToCharacterIndex(sequence, character.getName());
+            }
+            movie.setListener(indexUpdater);
+            moviesByYear.computeIfAbsent(movie.getYearReleased(), year -> new ConcurrentSkipListMap<>())
+                    .put(sequence, movie);
+            moviesByTitle.computeIfAbsent(MovieCollection.titleKey(movie.getTitle()), key -> new ConcurrentSkipListMap<>())
+                    .put(sequence, movie);
+            movies.put(sequence, movie);
+            return true;
+        } finally {
+            structureLock.unlock();
+        }
+    }
+
+    /**
+     * Adds a character to the first movie with the given title, ignoring case.
+     *
+     * @param title     the title of the movie
+     * @param character the character to add, which must not belong to a movie yet
+     * @return true if a movie with the title was found and the character was added
+     */
+    public boolean addCharacter(String title, HorrorCharacter character) {
+        for (MonsterMovie movie : moviesWithTitle(title)) {
+            StampedLock lock = stripe(movie);
+            long stamp = lock.writeLock();
+            try {
+                if (isLive(movie)
+                        && MovieCollection.titleKey(movie.getTitle()).equals(MovieCollection.titleKey(title))) {
+                    movie.addCharacter(character);
+                    return character != null && character.getMovie() == movie;
+                }
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes the characters with the given name, ignoring case, from the movies with the given title.
+     *
+     * @param title         the title of the movies, ignoring case
+     * @param characterName the name of the characters to remove
+     * @return the number of characters removed
+     */
+    public int removeCharacter(String title, String characterName) {
+        return editCharacters(title, characterName, character -> character.getMovie().removeCharacter(character));
+    }
+
+    /**
+     * Changes the characters with the given name, ignoring case, in the movies with the given title.
+     * The edit runs while the movie is locked, and should only call the setters of the character or
+     * remove it from its movie.
+     *
+     * @param title         the title of the movies, ignoring case
+     * @param characterName the name of the characters to change
+     * @param edit          the change to apply to each matching character
+     * @return the number of characters the edit was applied to
+     */
+    public int editCharacters(String title, String characterName, Consumer<HorrorCharacter> edit) {
+        String titleKey = MovieCollection.titleKey(title);
+        String nameKey = MovieCollection.titleKey(characterName);
+        int edited = 0;
+        for (MonsterMovie movie : moviesWithTitle(title)) {
+            StampedLock lock = stripe(movie);
+            long stamp = lock.writeLock();
+            try {
+                if (isLive(movie) && MovieCollection.titleKey(movie.getTitle()).equals(titleKey)) {
+                    // copy the characters, the edit may rename or remove them
+                    for (HorrorCharacter character : new ArrayList<>(movie.getHorrorCharacters())) {
+                        if (MovieCollection.titleKey(character.getName()).equals(nameKey)) {
+                            edit.accept(character);
+                            edited++;
+                        }
+                    }
+                }
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+        return edited;
+    }
+
+    /**
+     * Changes the title and release year of the movies with the given title, ignoring case.
+     *
+     * @param title        the current title of the movies
+     * @param newTitle     the new title, or an empty string to keep the title
+     * @param newYear      the new release year, or a year before 1895 to keep the year
+     * @return the number of movies changed
+     */
+    public int editMovies(String title, String newTitle, int newYear) {
+        structureLock.lock();
+        try {
+            List<MonsterMovie> matching = moviesWithTitle(title);
+            for (MonsterMovie movie : matching) {
+                StampedLock lock = stripe(movie);
+                long stamp = lock.writeLock();
+                try {
+                    if (!newTitle.isEmpty()) {
+                        movie.setTitle(newTitle);
+                    }
+                    if (newYear >= 1895) {
+                        movie.setYearReleased(newYear);
+                    }
+                } finally {
+                    lock.unlockWrite(stamp);
+                }
+            }
+            return matching.size();
+        } finally {
+            structureLock.unlock();
+        }
+    }
+
+    /**
+     * Removes every movie with the given title, ignoring case.
+     *
+     * @param title the title of the movies to remove
+     * @return the number of movies removed
+     */
+    public int removeMoviesByTitle(String title) {
+        structureLock.lock();
+        try {
+            return removeAll(moviesWithTitle(title));
+        } finally {
+            structureLock.unlock();
+        }
+    }
+
+    /**
+     * Removes every movie released in the given year.
+     *
+     * @param year the release year of the movies to remove
+     * @return the number of movies removed
+     */
+    public int removeMoviesByYear(int year) {
+        structureLock.lock();
+        try {
+            ConcurrentNavigableMap<Long, MonsterMovie> sameYear = moviesByYear.get(year);
+            return sameYear == null ? 0 : removeAll(new ArrayList<>(sameYear.values()));
+        } finally {
+            structureLock.unlock();
+        }
+    }
+
+    /**
+     * Removes every movie featuring a character with the given name, ignoring case.
+     *
+     * @param characterName the name of the character
+     * @return the number of movies removed
+     */
+    public int removeMoviesByCharacter(String characterName) {
+        structureLock.lock();
+        try {
+            return removeAll(moviesWithCharacter(characterName));
+        } finally {
+            structureLock.unlock();
+        }
+    }
+
+    /**
+     * Gets the number of movies in the collection.
+     *
+     * @return the number of movies
+     */
+    public int size() {
+        return movies.size();
+    }
+
+    /**
+     * Gets detached copies of all movies in the collection, in insertion order.
+     *
+     * @return the copies, which can be changed freely without affecting the collection
+     */
+    public List<MonsterMovie> getMovies() {
+        return copies(movies.values());
+    }
+
+    /**
+     * Performs an action for the title and release year of every movie in the collection, in insertion order.
+     *
+     * @param action the action to perform, given the title and the release year
+     */
+    @Override
+    public void forEachMovieTitle(ObjIntConsumer<String> action) {
+        forEachMovie(movie -> action.accept(movie.getTitle(), movie.getYearReleased()));
+    }
+
+    /**
+     * Performs an action for a detached copy of every movie in the collection, in insertion order,
+     * copying one movie at a time.
+     *
+     * @param action the action to perform
+     */
+    @Override
+    public void forEachMovie(Consumer<MonsterMovie> action) {
+        for (MonsterMovie movie : movies.values()) {
+            MonsterMovie copy = copy(movie);
+            if (copy != null) {
+                action.accept(copy);
+            }
+        }
+    }
+
+    /**
+     * Finds the movies with the given title, ignoring case.
+     *
+     * @param title the title to look up
+     * @return detached copies of the movies with the title, or an empty list if there are none
+     */
+    @Override
+    public List<MonsterMovie> findMoviesByTitle(String title) {
+        return copies(moviesWithTitle(title));
+    }
+
+    /**
+     * Finds the movies released between two years, both inclusive, ordered by release year.
+     *
+     * @param fromYear the first release year of the range
+     * @param toYear   the last release year of the range
+     * @return detached copies of the movies released in the range, or an empty list if there are none
+     */
+    @Override
+    public List<MonsterMovie> findMoviesByYearRange(int fromYear, int toYear) {
+        List<MonsterMovie> found = new ArrayList<>();
+        if (fromYear <= toYear) {
+            for (ConcurrentNavigableMap<Long, MonsterMovie> sameYear
+                    : moviesByYear.subMap(fromYear, true, toYear, true).values()) {
+                found.addAll(sameYear.values());
+            }
+        }
+        return copies(found);
+    }
+
+    /**
+     * Finds the movies featuring a character with the given name, ignoring case.
+     *
+     * @param characterName the name of the character to look up
+     * @return detached copies of the movies featuring the character, or an empty list if there are none
+     */
+    @Override
+    public List<MonsterMovie> findMoviesByCharacter(String characterName) {
+        return copies(moviesWithCharacter(characterName));
+    }
+
+    /**
+     * Finds the live movies with the given title, ignoring case.
+     */
+    private List<MonsterMovie> moviesWithTitle(String title) {
+        ConcurrentNavigableMap<Long, MonsterMovie> sameTitle = moviesByTitle.get(MovieCollection.titleKey(title));
+        return sameTitle == null ? new ArrayList<>() : new ArrayList<>(sameTitle.values());
+    }
+
+    /**
+     * Finds the live movies featuring a character with the given name, ignoring case.
+     */
+    private List<MonsterMovie> moviesWithCharacter(String characterName) {
+        List<MonsterMovie> found = new ArrayList<>();
+        ConcurrentNavigableMap<Long, Integer> featuring = moviesByCharacter.get(MovieCollection.titleKey(characterName));
+        if (featuring != null) {
+            for (Long sequence : featuring.keySet()) {
+                MonsterMovie movie = movies.get(sequence);
+                if (movie != null) {
+                    found.add(movie);
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Removes movies from the collection and its indexes. Must be called holding structureLock.
+     */
+    private int removeAll(List<MonsterMovie> removed) {
+        for (MonsterMovie movie : removed) {
+            StampedLock lock = stripe(movie);
+            long stamp = lock.writeLock();
+            try {
+                long sequence = movie.getSequence();
+                movies.remove(sequence);
+                removeFromIndex(moviesByYear, movie.getYearReleased(), sequence);
+                removeFromIndex(moviesByTitle, MovieCollection.titleKey(movie.getTitle()), sequence);
+                for (HorrorCharacter character : movie.getHorrorCharacters()) {
+                    removeFromCharacterIndex(sequence, character.getName());
+                }
+                movie.setListener(null);
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+        return removed.size();
+    }
+
+    /**
+     * Copies movies, skipping those removed before they could be copied.
+     */
+    private List<MonsterMovie> copies(Collection<MonsterMovie> live) {
+        List<MonsterMovie> copies = new ArrayList<>(live.size());
+        for (MonsterMovie movie : live) {
+            MonsterMovie copy = copy(movie);
+            if (copy != null) {
+                copies.add(copy);
+            }
+        }
+        return copies;
+    }
+
+    /**
+     * Copies a movie in a consistent state. The copy is first taken without locking and kept if no writer
+     * locked the movie meanwhile; otherwise the copy is taken again under the read lock.
+     *
+     * @return the copy, or null if the movie has been removed from the collection
+     */
+    private MonsterMovie copy(MonsterMovie movie) {
+        StampedLock lock = stripe(movie);
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                MonsterMovie copy = isLive(movie) ? movie.copy() : null;
+                if (lock.validate(stamp)) {
+                    return copy;
+                }
+            } catch (RuntimeException e) {
+                // a writer changed the movie while it was copied, the validation would have failed
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return isLive(movie) ? movie.copy() : null;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private boolean isLive(MonsterMovie movie) {
+        return movie.getListener() == indexUpdater;
+    }
+
+    private StampedLock stripe(MonsterMovie movie) {
+        return stripes[(int) movie.getSequence() & (STRIPES - 1)];
+    }
+
+    private void addToCharacterIndex(long sequence, String characterName) {
+        // compute runs atomically per name, so concurrent writers to different movies do not lose counts
+        moviesByCharacter.compute(MovieCollection.titleKey(characterName), (key, featuring) -> {
+            if (featuring == null) {
+                featuring = new ConcurrentSkipListMap<>();
+            }
+            featuring.merge(sequence, 1, Integer::sum);
+            return featuring;
+        });
+    }
+
+    private void removeFromCharacterIndex(long sequence, String characterName) {
+        moviesByCharacter.computeIfPresent(MovieCollection.titleKey(characterName), (key, featuring) -> {
+            featuring.computeIfPresent(sequence, (s, count) -> count > 1 ? count - 1 : null);
+            return featuring.isEmpty() ? null : featuring;
+        });
+    }
+
+    /**
+     * Removes a movie from a year or title index bucket, dropping the bucket once it is empty.
+     * Must be called holding structureLock.
+     */
+    private static <K> void removeFromIndex(Map<K, ConcurrentNavigableMap<Long, MonsterMovie>> index, K key,
+                                            long sequence) {
+        ConcurrentNavigableMap<Long, MonsterMovie> bucket = index.get(key);
+        if (bucket != null) {
+            bucket.remove(sequence);
+            if (bucket.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Keeps the indexes in sync with the changes made through the collection, while the movie is locked.
+     */
+    private class IndexUpdater implements MovieListener {
+        @Override
+        public void characterAdded(MonsterMovie movie, HorrorCharacter character) {
+            addToCharacterIndex(movie.getSequence(), character.getName());
+        }
+
+        @Override
+        public void characterRemoved(MonsterMovie movie, HorrorCharacter character) {
+            removeFromCharacterIndex(movie.getSequence(), character.getName());
+        }
+
+        @Override
+        public void characterUpdated(MonsterMovie movie, HorrorCharacter character, HorrorCharacter previous) {
+            if (!character.getName().equals(previous.getName())) {
+                removeFromCharacterIndex(movie.getSequence(), previous.getName());
+                addToCharacterIndex(movie.getSequence(), character.getName());
+            }
+        }
+
+        @Override
+        public void movieUpdated(MonsterMovie movie, String previousTitle, int previousYear) {
+            // only called from editMovies, which holds structureLock
+            long sequence = movie.getSequence();
+            String key = MovieCollection.titleKey(movie.getTitle());
+            if (!key.equals(MovieCollection.titleKey(previousTitle))) {
+                moviesByTitle.computeIfAbsent(key, k -> new ConcurrentSkipListMap<>()).put(sequence, movie);
+                removeFromIndex(moviesByTitle, MovieCollection.titleKey(previousTitle), sequence);
+            }
+            if (movie.getYearReleased() != previousYear) {
+                moviesByYear.computeIfAbsent(movie.getYearReleased(), year -> new ConcurrentSkipListMap<>())
+                        .put(sequence, movie);
+                removeFromIndex(moviesByYear, previousYear, sequence);
+            }
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package monstermovies;
+
+import java.util.*;
+import java.util.function.BiConsumer;
+
+/**
+ * FrequencyCounter counts how often each key occurs and keeps the keys grouped by their count,
+ * so incrementing or decrementing a key takes constant time and the K most frequent keys are
+ * found by visiting only K keys.
+ *
+ * <p>Every distinct count in use has a bucket holding the keys with that count, and the buckets
+ * form a doubly linked list ordered by count. Changing the count of a key moves it to the
+ * neighbouring bucket, creating that bucket if needed and dropping buckets that become empty.
+ * Keys whose count drops to zero are forgotten. Within a bucket, keys are kept in the order
+ * they reached the count.
+ *
+ * @param <K> the type of the counted keys
+ */
+public class FrequencyCounter<K> {
+
+    /**
+     * The bucket each key currently belongs to.
+     */
+    private final Map<K, Bucket<K>> buckets = new HashMap<>();
+
+    /**
+     * The bucket with the highest count, or null if nothing is counted.
+     */
+    private Bucket<K> highest;
+
+    /**
+     * The bucket with the lowest count, or null if nothing is counted.
+     */
+    private Bucket<K> lowest;
+
+    /**
+     * Counts one more occurrence of a key.
+     *
+     * @param key the key to count
+     */
+    public void increment(K key) {
+        Bucket<K> current = buckets.get(key);
+        Bucket<K> target;
+        if (current == null) {
+            target = lowest != null && lowest.count == 1 ? lowest : insertAfter(null, 1);
+        } else {
+            target = current.higher != null && current.higher.count == current.count + 1
+                    ? current.higher : insertAfter(current, current.count + 1);
+            removeFrom(current, key);
+        }
+        target.keys.add(key);
+        buckets.put(key, target);
+    }
+
+    /**
+     * Counts one occurrence of a key less, forgetting the key once its count reaches zero.
+     *
+     * @param key the key to uncount
+     */
+    public void decrement(K key) {
+        Bucket<K> current = buckets.get(key);
+        if (current == null) {
+            return;
+        }
+        if (current.count == 1) {
+            buckets.remove(key);
+        } else {
+            Bucket<K> target = current.lower != null && current.lower.count == current.count - 1
+                    ? current.lower : insertAfter(current.lower, current.count - 1);
+            target.keys.add(key);
+            buckets.put(key, target);
+        }
+        removeFrom(current, key);
+    }
+
+    /**
+     * Forgets every key.
+     */
+    public void clear() {
+        buckets.clear();
+        highest = null;
+        lowest = null;
+    }
+
+    /**
+     * Gets the count of a key.
+     *
+     * @param key the key to look up
+     * @return the number of occurrences of the key, 0 if it is not counted
+     */
+    public int count(K key) {
+        Bucket<K> bucket = buckets.get(key);
+        return bucket == null ? 0 : bucket.count;
+    }
+
+    /**
+     * Gets the number of distinct keys with a count above zero.
+     *
+     * @return the number of counted keys
+     */
+    public int size() {
+        return buckets.size();
+    }
+
+    /**
+     * Gets the most frequent keys, visiting only the keys returned.
+     * Keys with equal counts are returned in the order they reached that count.
+     *
+     * @param k the maximum number of keys to return
+     * @return up to k keys with their counts, most frequent first
+     */
+    public List<Map.Entry<K, Integer>> top(int k) {
+        List<Map.Entry<K, Integer>> top = new ArrayList<>(Math.min(Math.max(k, 0), buckets.size()));
+        for (Bucket<K> bucket = highest; bucket != null && top.size() < k; bucket = bucket.lower) {
+            for (K key : bucket.keys) {
+                if (top.size() == k) {
+                    break;
+                }
+                top.add(Map.entry(key, bucket.count));
+            }
+        }
+        return top;
+    }
+
+    /**
+     * Performs an action for every counted key and its count, in no particular order.
+     *
+     * @param action the action to perform
+     */
+    public void forEach(BiConsumer<? super K, Integer> action) {
+        buckets.forEach((key, bucket) -> action.accept(key, bucket.count));
+    }
+
+    /**
+     * Creates an empty bucket right above another one in the list.
+     *
+     * @param below the bucket the new one follows, or null to make it the lowest
+     * @param count the count of the new bucket
+     * @return the new bucket
+     */
+    private Bucket<K> insertAfter(Bucket<K> below, int count) {
+        Bucket<K> bucket = new Bucket<>(count);
+        Bucket<K> above = below == null ? lowest : below.higher;
+        bucket.lower = below;
+        bucket.higher = above;
+        if (below == null) {
+            lowest = bucket;
+        } else {
+            below.higher = bucket;
+        }
+        if (above == null) {
+            highest = bucket;
+        } else {
+            above.lower = bucket;
+        }
+        return bucket;
+    }
+
+    /**
+     * Removes a key from a bucket, unlinking the bucket once it is empty.
+     */
+    private void removeFrom(Bucket<K> bucket, K key) {
+        bucket.keys.remove(key);
+        if (!bucket.keys.isEmpty()) {
+            return;
+        }
+        if (bucket.lower == null) {
+            lowest = bucket.higher;
+        } else {
+            bucket.lower.higher = bucket.higher;
+        }
+        if (bucket.higher == null) {
+            highest = bucket.lower;
+        } else {
+            bucket.higher.lower = bucket.lower;
+        }
+    }
+
+    /**
+     * The keys sharing one count.
+     */
+    private static final class Bucket<K> {
+        private final int count;
+        private final Set<K> keys = new LinkedHashSet<>();
+        private Bucket<K> lower;
+        private Bucket<K> higher;
+
+        Bucket(int count) {
+            this.count = count;
+        }
+    }
+}
@@ -1,3 +1,5 @@
+package monstermovies;
+
 /**
  * The HorrorCharacter class represents a character in a horror-themed movie or story.
  * Each character has attributes such as name, subtype, age, year of rebirth, and vulnerability.
@@ -5,10 +7,13 @@
  */
 public class HorrorCharacter implements Comparable<HorrorCharacter> {
     private String name;
+    // subtype and vulnerability come from a small vocabulary and are shared through SymbolTable
     private String subtype;
     private int age;
     private int rebirth;
     private String vulnerability;
+    // the movie this character belongs to, told about every change so it can keep its indexes up to date
+    private MonsterMovie movie;
 
     /**
      * Constructs a new HorrorCharacter with the specified attributes.
@@ -28,6 +33,19 @@ public class HorrorCharacter implements Comparable<HorrorCharacter> {
         setVulnerability(vulnerability);
     }
 
+    /**
+     * Constructs a detached copy of another character, holding its current attributes.
+     *
+     * @param other the character to copy
+     */
+    private HorrorCharacter(HorrorCharacter other) {
+        this.name = other.name;
+        this.subtype = other.subtype;
+        this.age = other.age;
+        this.rebirth = other.rebirth;
+        this.vulnerability = other.vulnerability;
+    }
+
     /**
      * Gets the name of the character.
      *
@@ -47,7 +65,12 @@ public class HorrorCharacter implements Comparable<HorrorCharacter> {
         if (name == null) {
             throw new IllegalArgumentException("Name cannot be null.");
         }
+        if (name.equals(this.name)) {
+            return;
+        }
+        HorrorCharacter previous = copyIfOwned();
         this.name = name;
+        notifyMovie(previous);
     }
 
     /**
@@ -60,7 +83,7 @@ public class HorrorCharacter implements Comparable<HorrorCharacter> {
     }
 
     /**
-     * Sets the subtype of the character.
+     * Sets the subtype of the character, canonicalized through SymbolTable.SUBTYPES.
      *
      * @param subtype the new subtype (must not be null)
      * @throws IllegalArgumentException if the subtype is null
@@ -69,7 +92,12 @@ public class HorrorCharacter implements Comparable<HorrorCharacter> {
         if (subtype == null) {
             throw new IllegalArgumentException("Subtype cannot be null.");
         }
-        this.subtype = subtype;
+        if (subtype.equals(this.subtype)) {
+            return;
+        }
+        HorrorCharacter previous = copyIfOwned();
+        this.subtype = SymbolTable.SUBTYPES.intern(subtype);
+        notifyMovie(previous);
     }
 
     /**
@@ -91,7 +119,12 @@ public class HorrorCharacter implements Comparable<HorrorCharacter> {
         if (age < 0) {
             throw new IllegalArgumentException("Age cannot be negative.");
         }
+        if (age == this.age) {
+            return;
+        }
+        HorrorCharacter previous = copyIfOwned();
         this.age = age;
+        notifyMovie(previous);
     }
 
     /**
@@ -113,7 +146,12 @@ public class HorrorCharacter implements Comparable<HorrorCharacter> {
         if (rebirth < 0) {
             throw new IllegalArgumentException("Rebirth year cannot be negative.");
         }
+        if (rebirth == this.rebirth) {
+            return;
+        }
+        HorrorCharacter previous = copyIfOwned();
         this.rebirth = rebirth;
+        notifyMovie(previous);
     }
 
     /**
@@ -126,7 +164,7 @@ public class HorrorCharacter implements Comparable<HorrorCharacter> {
     }
 
     /**
-     * Sets the vulnerability of the character.
+     * Sets the vulnerability of the character, canonicalized through SymbolTable.VULNERABILITIES.
      *
      * @param vulnerability the new vulnerability (must not be null)
      * @throws IllegalArgumentException if the vulnerability is null
@@ -135,7 +173,72 @@ public class HorrorCharacter implements Comparable<HorrorCharacter> {
         if (vulnerability == null) {
             throw new IllegalArgumentException("Vulnerability cannot be null.");
         }
-        this.vulnerability = vulnerability;
+        if (vulnerability.equals(this.vulnerability)) {
+            return;
+        }
+        HorrorCharacter previous = copyIfOwned();
+        this.vulnerability = SymbolTable.VULNERABILITIES.intern(vulnerability);
+        notifyMovie(previous);
+    }
+
+    /**
+     * Gets the movie this character belongs to.
+     *
+     * @return the movie the character was added to, or null if it is not part of a movie
+     */
+    MonsterMovie getMovie() {
+        return movie;
+    }
+
+    /**
+     * Sets the movie this character belongs to. Called by MonsterMovie when the character
+     * is added to or removed from it.
+     *
+     * @param movie the owning movie, or null when the character is removed
+     */
+    void setMovie(MonsterMovie movie) {
+        this.movie = movie;
+    }
+
+    /**
+     * Checks whether this character holds the same attributes as another one.
+     * Names, subtypes and vulnerabilities are compared exactly, not ignoring case.
+     *
+     * @param other the character to compare attributes with
+     * @return true if all five attributes are equal
+     */
+    boolean sameAttributes(HorrorCharacter other) {
+        return name.equals(other.name) && age == other.age && subtype.equals(other.subtype) &&
+                rebirth == other.rebirth && vulnerability.equals(other.vulnerability);
+    }
+
+    /**
+     * Creates a detached copy of this character, holding its current attributes but not part of any movie.
+     *
+     * @return the copy
+     */
+    HorrorCharacter copy() {
+        return new HorrorCharacter(this);
+    }
+
+    /**
+     * Copies this character before a change, if a movie has to be told about the change.
+     *
+     * @return a copy holding the current attributes, or null if the character is not part of a movie
+     */
+    private HorrorCharacter copyIfOwned() {
+        return movie == null ? null : copy();
+    }
+
+    /**
+     * Tells the owning movie that this character changed.
+     *
+     * @param previous the copy returned by copyIfOwned before the change
+     */
+    private void notifyMovie(HorrorCharacter previous) {
+        if (previous != null) {
+            movie.characterUpdated(this, previous);
+        }
     }
 
     /**
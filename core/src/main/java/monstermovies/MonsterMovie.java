@@ -0,0 +1,441 @@
+package monstermovies;
+
+import java.util.*;
+import java.util.function.BiConsumer;
+
+/**
+ * The MonsterMovie class represents a movie in the horror genre
+ * that contains a collection of HorrorCharacter objects, along with
+ * features such as tracking character subtypes and common vulnerabilities.
+ */
+public class MonsterMovie {
+
+    /**
+     * The title of the movie.
+     */
+    private String title;
+
+    /**
+     * The year the movie was released.
+     */
+    private int yearReleased;
+
+    /**
+     * The list of horror characters in the movie, kept sorted by name (see HorrorCharacter.compareTo).
+     * Characters with equal names stay in the order they were added.
+     */
+    private final List<HorrorCharacter> characters;
+
+    /**
+     * Tracks the count of each subtype of character in the movie.
+     */
+    private final FrequencyCounter<String> subtypeCount;
+
+    /**
+     * Tracks the most common vulnerabilities among the characters.
+     */
+    private final FrequencyCounter<String> commonVulnerabilities;
+
+    /**
+     * The listener notified about character changes, usually the MovieCollection holding this movie.
+     */
+    private MovieListener listener;
+
+    /**
+     * The position at which the movie was added to its collection, used to keep the movies sharing a title
+     * in the order of the collection.
+     */
+    private long sequence;
+
+    /**
+     * Constructs a MonsterMovie instance with the specified title and release year.
+     *
+     * @param title         the title of the movie
+     * @param yearReleased  the year the movie was released
+     */
+    public MonsterMovie(String title, int yearReleased) {
+        this(title, yearReleased, 10);
+    }
+
+    /**
+     * Constructs a MonsterMovie instance with room for the given number of characters,
+     * used when the number of characters is known up front, such as when loading a snapshot.
+     *
+     * @param title               the title of the movie
+     * @param yearReleased        the year the movie was released
+     * @param expectedCharacters  the number of characters the movie is expected to hold
+     */
+    public MonsterMovie(String title, int yearReleased, int expectedCharacters) {
+        this.title = title;
+        this.yearReleased = yearReleased;
+        this.characters = new ArrayList<>(expectedCharacters);
+        this.subtypeCount = new FrequencyCounter<>();
+        this.commonVulnerabilities = new FrequencyCounter<>();
+    }
+
+    /**
+     * Adds a HorrorCharacter to the movie.
+     *
+     * @param character  the HorrorCharacter to add
+     *                   (must not be null; handles null subtypes or vulnerabilities with warnings)
+     */
+    public void addCharacter(HorrorCharacter character) {
+        if (character == null) {
+            System.err.println("Error: Null character cannot be added.");
+            return;
+        }
+        if (character.getMovie() != null) {
+            System.err.println("Error: Character already belongs to a movie.");
+            return;
+        }
+        try {
+            characters.add(insertionPoint(character), character);
+            character.setMovie(this);
+            String subtype = character.getSubtype();
+            if (subtype != null) {
+                subtypeCount.increment(subtype);
+            } else {
+                System.err.println("Warning: Character has a null subtype.");
+            }
+
+            String vulnerabilities = character.getVulnerability();
+            if (vulnerabilities != null) {
+                commonVulnerabilities.increment(vulnerabilities);
+            } else {
+                System.err.println("Warning: Character has null vulnerability.");
+            }
+            if (listener != null) {
+                listener.characterAdded(this, character);
+            }
+        } catch (Exception e) {
+            System.err.println("An error occurred while adding the character");
+        }
+    }
+
+    /**
+     * Adds several HorrorCharacters to the movie at once.
+     * The batch is checked first and added only if every character can be added, so either all of the
+     * characters are added or none. The new characters are sorted once and merged into the sorted list
+     * in a single pass, instead of being inserted one at a time.
+     *
+     * @param batch  the HorrorCharacters to add, none of them null or already part of a movie
+     * @return true if the characters were added, false if the batch was rejected
+     */
+    public boolean addCharacters(Collection<HorrorCharacter> batch) {
+        if (batch == null) {
+            System.err.println("Error: Null batch of characters cannot be added.");
+            return false;
+        }
+        Set<HorrorCharacter> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (HorrorCharacter character : batch) {
+            if (character == null) {
+                System.err.println("Error: Null character cannot be added.");
+                return false;
+            }
+            if (character.getMovie() != null) {
+                System.err.println("Error: Character already belongs to a movie.");
+                return false;
+            }
+            if (!seen.add(character)) {
+                System.err.println("Error: Character appears more than once in the batch.");
+                return false;
+            }
+        }
+        if (batch.isEmpty()) {
+            return true;
+        }
+        // a stable sort, so characters with equal names keep the order of the batch, after the existing ones
+        List<HorrorCharacter> added = new ArrayList<>(batch);
+        added.sort(null);
+        List<HorrorCharacter> merged = new ArrayList<>(characters.size() + added.size());
+        int i = 0;
+        int j = 0;
+        while (i < characters.size() && j < added.size()) {
+            merged.add(added.get(j).compareTo(characters.get(i)) < 0 ? added.get(j++) : characters.get(i++));
+        }
+        merged.addAll(characters.subList(i, characters.size()));
+        merged.addAll(added.subList(j, added.size()));
+        characters.clear();
+        characters.addAll(merged);
+
+        List<HorrorCharacter> inBatchOrder = new ArrayList<>(batch);
+        for (HorrorCharacter character : inBatchOrder) {
+            character.setMovie(this);
+            if (character.getSubtype() != null) {
+                subtypeCount.increment(character.getSubtype());
+            } else {
+                System.err.println("Warning: Character has a null subtype.");
+            }
+            if (character.getVulnerability() != null) {
+                commonVulnerabilities.increment(character.getVulnerability());
+            } else {
+                System.err.println("Warning: Character has null vulnerability.");
+            }
+        }
+        if (listener != null) {
+            listener.charactersAdded(this, Collections.unmodifiableList(inBatchOrder));
+        }
+        return true;
+    }
+
+    /**
+     * Removes a HorrorCharacter from the movie.
+     *
+     * @param character  the HorrorCharacter to remove
+     */
+    public void removeCharacter(HorrorCharacter character) {
+        if (character == null) {
+            System.err.println("Error: Null character cannot be removed.");
+            return;
+        }
+        try{
+            int index = indexOf(character);
+            if (index >= 0) {
+                characters.remove(index);
+                character.setMovie(null);
+                subtypeCount.decrement(character.getSubtype());
+                commonVulnerabilities.decrement(character.getVulnerability());
+                if (listener != null) {
+                    listener.characterRemoved(this, character);
+                }
+            }
+        }
+        catch(Exception e){
+            System.err.println("An error occurred while removing the character");
+        }
+    }
+
+    /**
+     * Moves every character of this movie to another movie, leaving this movie without characters.
+     * Used to merge the parts of a movie that were read separately, see ParallelMovieImporter,
+     * so this movie must not belong to a collection.
+     *
+     * @param target  the movie to move the characters to
+     */
+    void moveCharactersTo(MonsterMovie target) {
+        for (HorrorCharacter character : characters) {
+            character.setMovie(null);
+            target.addCharacter(character);
+        }
+        characters.clear();
+        subtypeCount.clear();
+        commonVulnerabilities.clear();
+    }
+
+    /**
+     * Called by a HorrorCharacter of this movie after one of its attributes changed, and passes the
+     * change on to the listener.
+     *
+     * @param character  the changed character
+     * @param previous   a detached copy of the character from before the change
+     */
+    void characterUpdated(HorrorCharacter character, HorrorCharacter previous) {
+        if (character.compareTo(previous) != 0) {
+            // the name changed its place in the sort order, so the character is moved to its new place;
+            // the list is out of order until then, so the character is looked up by identity
+            for (int index = 0; index < characters.size(); index++) {
+                if (characters.get(index) == character) {
+                    characters.remove(index);
+                    break;
+                }
+            }
+            characters.add(insertionPoint(character), character);
+        }
+        if (!character.getSubtype().equals(previous.getSubtype())) {
+            subtypeCount.decrement(previous.getSubtype());
+            subtypeCount.increment(character.getSubtype());
+        }
+        if (!character.getVulnerability().equals(previous.getVulnerability())) {
+            commonVulnerabilities.decrement(previous.getVulnerability());
+            commonVulnerabilities.increment(character.getVulnerability());
+        }
+        if (listener != null) {
+            listener.characterUpdated(this, character, previous);
+        }
+    }
+
+    /**
+     * Gets the most common vulnerability among the characters, if it is shared by more than one character.
+     *
+     * @return the most common vulnerability, or null if no vulnerability occurs more than once
+     */
+    public String getMostCommonVulnerability() {
+        List<Map.Entry<String, Integer>> mostCommon = commonVulnerabilities.top(1);
+        return !mostCommon.isEmpty() && mostCommon.get(0).getValue() > 1 ? mostCommon.get(0).getKey() : null;
+    }
+
+    /**
+     * Gets the most common subtypes among the characters of the movie.
+     *
+     * @param k  the maximum number of subtypes to return
+     * @return up to k subtypes with their character counts, most common first
+     */
+    public List<Map.Entry<String, Integer>> getTopSubtypes(int k) {
+        return subtypeCount.top(k);
+    }
+
+    /**
+     * Gets the most common vulnerabilities among the characters of the movie.
+     *
+     * @param k  the maximum number of vulnerabilities to return
+     * @return up to k vulnerabilities with their character counts, most common first
+     */
+    public List<Map.Entry<String, Integer>> getTopVulnerabilities(int k) {
+        return commonVulnerabilities.top(k);
+    }
+
+    /**
+     * Performs an action for every subtype of the movie and the number of characters having it.
+     *
+     * @param action  the action to perform
+     */
+    void forEachSubtypeCount(BiConsumer<String, Integer> action) {
+        subtypeCount.forEach(action);
+    }
+
+    /**
+     * Performs an action for every vulnerability of the movie and the number of characters having it.
+     *
+     * @param action  the action to perform
+     */
+    void forEachVulnerabilityCount(BiConsumer<String, Integer> action) {
+        commonVulnerabilities.forEach(action);
+    }
+
+    /**
+     * Gets the title of the movie.
+     * @return the title of the movie
+     */
+    public String getTitle() {
+        return title;
+    }
+
+    /**
+     * Sets the title of the movie.
+     * @param title the movie title entered to set title
+     */
+    public void setTitle(String title) {
+        String previousTitle = this.title;
+        this.title = title;
+        if (listener != null && !Objects.equals(title, previousTitle)) {
+            listener.movieUpdated(this, previousTitle, yearReleased);
+        }
+    }
+
+    /**
+     * Gets the year the movie was released.
+     * @return the release year of the movie
+     */
+    public int getYearReleased() {
+        return yearReleased;
+    }
+
+    /**
+     * Sets the year released of the movie.
+     * @param yearReleased the year released entered to set released year of the movie
+     */
+    public void setYearReleased(int yearReleased) {
+        int previousYear = this.yearReleased;
+        this.yearReleased = yearReleased;
+        if (listener != null && yearReleased != previousYear) {
+            listener.movieUpdated(this, title, previousYear);
+        }
+    }
+
+    /**
+     * Gets the listener notified about character changes.
+     * @return the listener, or null if the movie is not part of a collection
+     */
+    MovieListener getListener() {
+        return listener;
+    }
+
+    /**
+     * Sets the listener notified about character changes.
+     * @param listener the new listener, or null to stop notifying
+     */
+    void setListener(MovieListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Gets the position at which the movie was added to its collection.
+     * @return the position, only meaningful while the movie belongs to a collection
+     */
+    long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Sets the position at which the movie was added to its collection.
+     * @param sequence the position, increasing with every movie added to the collection
+     */
+    void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    /**
+     * Creates a detached copy of the movie and its characters, not part of any collection.
+     * Used to hand out movies that must not be changed behind the back of their collection.
+     *
+     * @return the copy
+     */
+    MonsterMovie copy() {
+        MonsterMovie copy = new MonsterMovie(title, yearReleased, characters.size());
+        for (HorrorCharacter character : characters) {
+            HorrorCharacter characterCopy = character.copy();
+            characterCopy.setMovie(copy);
+            copy.characters.add(characterCopy);
+            copy.subtypeCount.increment(characterCopy.getSubtype());
+            copy.commonVulnerabilities.increment(characterCopy.getVulnerability());
+        }
+        return copy;
+    }
+
+    /**
+     * Gets the list of horror characters in the movie, sorted alphabetically.
+     * The list is a read-only view that follows later changes to the movie, so a loop that adds,
+     * removes or renames characters has to iterate over a copy of it.
+     *
+     * @return an unmodifiable sorted view of the HorrorCharacter objects
+     */
+    public List<HorrorCharacter> getHorrorCharacters() {
+        return Collections.unmodifiableList(characters);
+    }
+
+    /**
+     * Finds where a character belongs in the sorted list, after the characters with an equal name.
+     *
+     * @param character  the character to place
+     * @return the index to insert the character at
+     */
+    private int insertionPoint(HorrorCharacter character) {
+        int low = 0;
+        int high = characters.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (characters.get(middle).compareTo(character) <= 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Finds a character of this movie in the sorted list, searching only among the characters with an equal name.
+     *
+     * @param character  the character to look for
+     * @return the index of the character, or -1 if it is not part of this movie
+     */
+    private int indexOf(HorrorCharacter character) {
+        for (int index = insertionPoint(character) - 1;
+             index >= 0 && characters.get(index).compareTo(character) == 0; index--) {
+            if (characters.get(index) == character) {
+                return index;
+            }
+        }
+        return -1;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,236 @@
+package monstermovies;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Supplier;
+
+/**
+ * MovieAnalytics runs catalog-wide reports over a set of movies and returns their results as values
+ * instead of printing them, so other callers can reuse them.
+ *
+ * <p>Every report is an aggregation over the movies. Sequentially, one pass visits every movie.
+ * In parallel mode the movies are split in halves on a ForkJoinPool until a part holds no more than
+ * the threshold number of movies, each part is aggregated on its own and the partial results are
+ * combined, so large catalogs are spread over all cores of the pool. Catalogs smaller than the
+ * threshold are always aggregated sequentially on the calling thread.
+ *
+ * <p>The movies are read while a report runs, so they must not be changed meanwhile: use a collection
+ * that is not being changed, a MovieSnapshot, or the detached copies returned by ConcurrentMovieCollection.getMovies.
+ */
+public class MovieAnalytics {
+
+    /**
+     * The default number of movies below which a part is aggregated without splitting it further.
+     */
+    public static final int DEFAULT_THRESHOLD = 1024;
+
+    private final MonsterMovie[] movies;
+    private final ForkJoinPool pool;
+    private final int threshold;
+    // whether the movies are the frozen movies of a MovieSnapshot, which are only handed out as copies
+    private final boolean frozen;
+
+    /**
+     * Constructs analytics over the given movies.
+     *
+     * @param movies    the movies to report on, taken in iteration order
+     * @param pool      the pool to run the reports on, or null to run them sequentially
+     * @param threshold the largest number of movies aggregated without splitting, at least 1
+     * @throws IllegalArgumentException if the threshold is less than 1
+     */
+    public MovieAnalytics(Collection<MonsterMovie> movies, ForkJoinPool pool, int threshold) {
+        this(movies, pool, threshold, false);
+    }
+
+    private MovieAnalytics(Collection<MonsterMovie> movies, ForkJoinPool pool, int threshold, boolean frozen) {
+        if (threshold < 1) {
+            throw new IllegalArgumentException("Threshold must be at least 1.");
+        }
+        this.movies = movies.toArray(new MonsterMovie[0]);
+        this.pool = pool;
+        this.threshold = threshold;
+        this.frozen = frozen;
+    }
+
+    /**
+     * Creates analytics running sequentially over the movies of a collection.
+     *
+     * @param collection the collection to report on
+     * @return the analytics
+     */
+    public static MovieAnalytics of(MovieCollection collection) {
+        return new MovieAnalytics(collection.getMovies(), null, DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * Creates analytics running in parallel over the movies of a collection.
+     *
+     * @param collection the collection to report on
+     * @param pool       the pool to run the reports on
+     * @param threshold  the largest number of movies aggregated without splitting, at least 1
+     * @return the analytics
+     */
+    public static MovieAnalytics of(MovieCollection collection, ForkJoinPool pool, int threshold) {
+        return new MovieAnalytics(collection.getMovies(), Objects.requireNonNull(pool), threshold);
+    }
+
+    /**
+     * Creates analytics running sequentially over the movies of a snapshot, which can run on another thread
+     * while the collection the snapshot was taken from is being changed.
+     *
+     * @param snapshot the snapshot to report on, see MovieCollection.snapshot
+     * @return the analytics
+     */
+    public static MovieAnalytics of(MovieSnapshot snapshot) {
+        return new MovieAnalytics(snapshot.getMovies(), null, DEFAULT_THRESHOLD, true);
+    }
+
+    /**
+     * Creates analytics running in parallel over the movies of a snapshot.
+     *
+     * @param snapshot  the snapshot to report on, see MovieCollection.snapshot
+     * @param pool      the pool to run the reports on
+     * @param threshold the largest number of movies aggregated without splitting, at least 1
+     * @return the analytics
+     */
+    public static MovieAnalytics of(MovieSnapshot snapshot, ForkJoinPool pool, int threshold) {
+        return new MovieAnalytics(snapshot.getMovies(), Objects.requireNonNull(pool), threshold, true);
+    }
+
+    /**
+     * Counts the characters of each subtype.
+     *
+     * @return an unmodifiable map from subtype to number of characters, in subtype order
+     */
+    public Map<String, Long> countBySubtype() {
+        return Collections.unmodifiableMap(aggregate(TreeMap::new,
+                (counts, m) -> movies[m].forEachSubtypeCount((subtype, count) -> counts.merge(subtype, (long) count, Long::sum)),
+                MovieAnalytics::mergeCounts));
+    }
+
+    /**
+     * Counts the characters of each vulnerability.
+     *
+     * @return an unmodifiable map from vulnerability to number of characters, in vulnerability order
+     */
+    public Map<String, Long> countByVulnerability() {
+        return Collections.unmodifiableMap(aggregate(TreeMap::new,
+                (counts, m) -> movies[m].forEachVulnerabilityCount(
+                        (vulnerability, count) -> counts.merge(vulnerability, (long) count, Long::sum)),
+                MovieAnalytics::mergeCounts));
+    }
+
+    /**
+     * Counts the movies released in each decade.
+     *
+     * @return an unmodifiable map from the first year of a decade, such as 1970, to number of movies,
+     *         in ascending order
+     */
+    public Map<Integer, Long> countByDecade() {
+        return Collections.unmodifiableMap(aggregate(TreeMap::new,
+                (counts, m) -> counts.merge(Math.floorDiv(movies[m].getYearReleased(), 10) * 10, 1L, Long::sum),
+                MovieAnalytics::mergeCounts));
+    }
+
+    /**
+     * Finds the movies with the most characters.
+     * Movies with the same number of characters are ranked in the order they were given.
+     * The movies of a snapshot are returned as copies.
+     *
+     * @param n the maximum number of movies to return
+     * @return an unmodifiable list of up to n movies, the movie with the most characters first
+     */
+    public List<MonsterMovie> topMoviesByCastSize(int n) {
+        if (n <= 0) {
+            return List.of();
+        }
+        // ranks are movie positions; the heap keeps the n best ranks with the worst one on top
+        Comparator<Integer> worstFirst = Comparator.<Integer>comparingInt(m -> movies[m].getHorrorCharacters().size())
+                .thenComparing(Comparator.reverseOrder());
+        PriorityQueue<Integer> best = aggregate(() -> new PriorityQueue<>(worstFirst),
+                (heap, m) -> offer(heap, m, n),
+                (left, right) -> {
+                    for (int m : right) {
+                        offer(left, m, n);
+                    }
+                    return left;
+                });
+        Integer[] ranked = best.toArray(new Integer[0]);
+        Arrays.sort(ranked, worstFirst.reversed());
+        List<MonsterMovie> top = new ArrayList<>(ranked.length);
+        for (int m : ranked) {
+            top.add(frozen ? movies[m].copy() : movies[m]);
+        }
+        return Collections.unmodifiableList(top);
+    }
+
+    /**
+     * Aggregates over all movies, sequentially or on the pool depending on the mode and the number of movies.
+     *
+     * @param identity   creates an empty partial result
+     * @param accumulate adds the movie at a position to a partial result
+     * @param combine    combines two partial results, the first covering the earlier movies
+     * @return the result covering all movies
+     */
+    private <A> A aggregate(Supplier<A> identity, ObjIntConsumer<A> accumulate, BinaryOperator<A> combine) {
+        if (pool == null || movies.length <= threshold) {
+            return aggregateRange(identity, accumulate, 0, movies.length);
+        }
+        return pool.invoke(new AggregateTask<>(identity, accumulate, combine, 0, movies.length));
+    }
+
+    private static <A> A aggregateRange(Supplier<A> identity, ObjIntConsumer<A> accumulate, int from, int to) {
+        A result = identity.get();
+        for (int m = from; m < to; m++) {
+            accumulate.accept(result, m);
+        }
+        return result;
+    }
+
+    private static <K> TreeMap<K, Long> mergeCounts(TreeMap<K, Long> left, TreeMap<K, Long> right) {
+        right.forEach((key, count) -> left.merge(key, count, Long::sum));
+        return left;
+    }
+
+    private static void offer(PriorityQueue<Integer> heap, int m, int n) {
+        heap.offer(m);
+        if (heap.size() > n) {
+            heap.poll();
+        }
+    }
+
+    /**
+     * Aggregates a range of movies, splitting it in halves while it holds more than threshold movies.
+     */
+    @SuppressWarnings("serial") // only run in the pool, never serialized, and its lambdas are not serializable
+    private final class AggregateTask<A> extends RecursiveTask<A> {
+        private final Supplier<A> identity;
+        private final ObjIntConsumer<A> accumulate;
+        private final BinaryOperator<A> combine;
+        private final int from;
+        private final int to;
+
+        AggregateTask(Supplier<A> identity, ObjIntConsumer<A> accumulate, BinaryOperator<A> combine, int from, int to) {
+            this.identity = identity;
+            this.accumulate = accumulate;
+            this.combine = combine;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected A compute() {
+            if (to - from <= threshold) {
+                return aggregateRange(identity, accumulate, from, to);
+            }
+            int middle = (from + to) >>> 1;
+            AggregateTask<A> left = new AggregateTask<>(identity, accumulate, combine, from, middle);
+            left.fork();
+            A right = new AggregateTask<>(identity, accumulate, combine, middle, to).compute();
+            return combine.apply(left.join(), right);
+        }
+    }
+}
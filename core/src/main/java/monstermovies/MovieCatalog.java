@@ -0,0 +1,56 @@
+package monstermovies;
+
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * The MovieCatalog interface describes the read-only queries that can be run against a collection
+ * of MonsterMovie objects, independently of how the movies are stored. The queries only return data;
+ * showing it is left to the caller, such as MovieConsole in the cli module.
+ * MovieCollection implements it over its in-memory movies, and MappedMovieCatalog serves it straight
+ * from a memory-mapped snapshot file.
+ */
+public interface MovieCatalog {
+
+    /**
+     * Performs an action for the title and release year of every movie in the catalog, in catalog order,
+     * without building the movies.
+     *
+     * @param action the action to perform, given the title and the release year
+     */
+    void forEachMovieTitle(ObjIntConsumer<String> action);
+
+    /**
+     * Performs an action for every movie in the catalog, with its characters, in catalog order.
+     * Catalogs that do not hold MonsterMovie objects build one movie at a time.
+     *
+     * @param action the action to perform
+     */
+    void forEachMovie(Consumer<MonsterMovie> action);
+
+    /**
+     * Finds the movies with the given title, ignoring case.
+     *
+     * @param title the title to look up
+     * @return the movies with the title in catalog order, or an empty list if there are none
+     */
+    List<MonsterMovie> findMoviesByTitle(String title);
+
+    /**
+     * Finds the movies released between two years, both inclusive, ordered by release year.
+     *
+     * @param fromYear the first release year of the range
+     * @param toYear   the last release year of the range
+     * @return the movies released in the range, or an empty list if there are none
+     */
+    List<MonsterMovie> findMoviesByYearRange(int fromYear, int toYear);
+
+    /**
+     * Finds the movies featuring a character with the given name, ignoring case.
+     *
+     * @param characterName the name of the character to look up
+     * @return the movies featuring the character, or an empty list if there are none
+     */
+    List<MonsterMovie> findMoviesByCharacter(String characterName);
+}
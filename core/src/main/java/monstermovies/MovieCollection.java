@@ -0,0 +1,1023 @@
+package monstermovies;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Predicate;
+
+/**
+ * MovieCollection is a class that manages a collection of MonsterMovie objects.
+ * It provides functionalities such as adding, removing, finding and editing movies and their characters;
+ * showing them is left to the caller, such as MovieConsole in the cli module.
+ * Saving and loading the collection to/from a file is done by MovieFiles in the persistence module.
+ */
+public class MovieCollection implements MovieCatalog {
+    /**
+     * The number of sequences grouped into one chunk of a snapshot is 2 to the power of this number.
+     */
+    private static final int SNAPSHOT_CHUNK_SHIFT = 9;
+
+    // Composition instead of inheritance: MonsterMovie objects "has-a relationship"
+    // kept in insertion order, a set so that removing a movie found through an index does not scan the collection
+    private final Set<MonsterMovie> movies;
+    // aggregation (grouping), groups movies by their release year
+    // keys are release year (Integer) in ascending order, values are the MonsterMovie objects released in that year
+    // in the order they were indexed, a set so that removing one movie does not scan the whole year
+    private final NavigableMap<Integer, Set<MonsterMovie>> moviesByYear;
+    // index for case-insensitive title lookups
+    // keys are normalized titles (see titleKey), values are the movies sharing that title in insertion order
+    private final Map<String, List<MonsterMovie>> moviesByTitle;
+    // inverted index from character names to the movies featuring them
+    // keys are normalized names (see titleKey), values map each movie to how many of its characters have that name
+    private final Map<String, Map<MonsterMovie, Integer>> moviesByCharacter;
+    // range indexes over the characters of all movies, keys are ages and rebirth years in ascending order,
+    // values are the characters having them in the order they were indexed
+    private final NavigableMap<Integer, Set<HorrorCharacter>> charactersByAge = new TreeMap<>();
+    private final NavigableMap<Integer, Set<HorrorCharacter>> charactersByRebirth = new TreeMap<>();
+    // collection-wide rollups of the subtypes and vulnerabilities of all characters, kept up to date on every change
+    private final FrequencyCounter<String> subtypeCounts = new FrequencyCounter<>();
+    private final FrequencyCounter<String> vulnerabilityCounts = new FrequencyCounter<>();
+    // the number of characters in all movies, kept up to date with the rollups above
+    private int characterCount;
+    // keeps the indexes in sync when a movie in the collection or one of its characters changes
+    private final MovieListener indexUpdater = new IndexUpdater();
+    // records every change to the collection when it is attached, see CollectionJournal
+    private CollectionJournal journal;
+    // the sequence given to the next movie added, see addToTitleIndex
+    private long nextSequence;
+    // prefix and fuzzy search over the keys of the title index, built by the first search and kept in sync after
+    private TitleSearch titleSearch;
+    // the number of changes made to the collection so far, see getVersion
+    private long version;
+    // the movies grouped into chunks by their sequence, see snapshot; chunk i holds the movies whose sequence
+    // shifted right by SNAPSHOT_CHUNK_SHIFT is i, built by the first snapshot and kept in sync after
+    private List<SnapshotChunk> snapshotChunks;
+    // the last snapshot taken, null once the collection has changed since
+    private MovieSnapshot lastSnapshot;
+
+    /**
+     * Constructor initializes the movie collection, the moviesByYear map, the title index and the character index.
+     */
+    public MovieCollection() {
+        this(16);
+    }
+
+    /**
+     * Constructor initializes a movie collection sized to hold the given number of movies without rehashing,
+     * used when the number of movies is known up front, such as when loading a snapshot.
+     * @param expectedMovies the number of movies the collection is expected to hold
+     */
+    public MovieCollection(int expectedMovies) {
+        this.movies = LinkedHashSet.newLinkedHashSet(expectedMovies);
+        this.moviesByYear = new TreeMap<>();
+        this.moviesByTitle = HashMap.newHashMap(expectedMovies);
+        this.moviesByCharacter = HashMap.newHashMap(expectedMovies);
+    }
+
+    /**
+     * Adds a MonsterMovie object to the collection.
+     * Adds a movie to the set of MonsterMovie and to the year, title and character indexes.
+     * @param movie the MonsterMovie object to add
+     */
+    public void addMovie(MonsterMovie movie) {
+        if (movie == null) {
+            System.err.println("Error: Cannot add a null movie.");
+            return;
+        }
+        if (movie.getListener() != null) {
+            System.err.println("Error: Movie already belongs to a collection.");
+            return;
+        }
+        movie.setSequence(nextSequence++);
+        movies.add(movie);
+        addToYearIndex(movie);
+        addToTitleIndex(movie);
+        for (HorrorCharacter character : movie.getHorrorCharacters()) {
+            addToCharacterIndex(movie, character.getName());
+            addToRangeIndexes(character);
+            subtypeCounts.increment(character.getSubtype());
+            vulnerabilityCounts.increment(character.getVulnerability());
+            characterCount++;
+        }
+        movie.setListener(indexUpdater);
+        snapshotAdded(movie);
+        if (journal != null) {
+            journal.movieAdded(movie);
+        }
+    }
+
+    /**
+     * Adds several MonsterMovie objects to the collection at once.
+     * The batch is checked first and added only if every movie can be added, so either all of the movies
+     * are added or none. Each year and title bucket of the indexes is grown once for the whole batch,
+     * and the batch is recorded as one atomic record in the journal if one is attached.
+     * @param batch the movies to add, none of them null or already part of a collection
+     * @return true if the movies were added, false if the batch was rejected
+     */
+    public boolean addMovies(Collection<MonsterMovie> batch) {
+        if (batch == null) {
+            System.err.println("Error: Cannot add a null batch of movies.");
+            return false;
+        }
+        Set<MonsterMovie> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (MonsterMovie movie : batch) {
+            if (movie == null) {
+                System.err.println("Error: Cannot add a null movie.");
+                return false;
+            }
+            if (movie.getListener() != null) {
+                System.err.println("Error: Movie already belongs to a collection.");
+                return false;
+            }
+            if (!seen.add(movie)) {
+                System.err.println("Error: Movie appears more than once in the batch.");
+                return false;
+            }
+        }
+        Map<Integer, List<MonsterMovie>> byYear = new HashMap<>();
+        Map<String, List<MonsterMovie>> byTitle = new HashMap<>();
+        for (MonsterMovie movie : batch) {
+            movie.setSequence(nextSequence++);
+            movies.add(movie);
+            byYear.computeIfAbsent(movie.getYearReleased(), year -> new ArrayList<>()).add(movie);
+            byTitle.computeIfAbsent(titleKey(movie.getTitle()), key -> new ArrayList<>()).add(movie);
+            for (HorrorCharacter character : movie.getHorrorCharacters()) {
+                addToCharacterIndex(movie, character.getName());
+                addToRangeIndexes(character);
+                subtypeCounts.increment(character.getSubtype());
+                vulnerabilityCounts.increment(character.getVulnerability());
+                characterCount++;
+            }
+            movie.setListener(indexUpdater);
+            snapshotAdded(movie);
+        }
+        // addAll grows a bucket at most once; the new movies have the highest sequences, so appending
+        // them keeps every title bucket in order
+        byYear.forEach((year, added) -> moviesByYear.computeIfAbsent(year, y -> LinkedHashSet.newLinkedHashSet(added.size()))
+                .addAll(added));
+        byTitle.forEach((key, added) -> moviesByTitle.computeIfAbsent(key, this::newTitleBucket).addAll(added));
+        if (journal != null) {
+            journal.beginBatch();
+            for (MonsterMovie movie : batch) {
+                journal.movieAdded(movie);
+            }
+            journal.endBatch();
+        }
+        return true;
+    }
+
+    /**
+     * Adds several characters at once to the first movie with the given title, ignoring case.
+     * Either all of the characters are added or none, see MonsterMovie.addCharacters.
+     * @param title the title of the movie to add the characters to
+     * @param batch the characters to add, none of them null or already part of a movie
+     * @return true if the characters were added, false if the movie was not found or the batch was rejected
+     */
+    public boolean addCharacters(String title, Collection<HorrorCharacter> batch) {
+        List<MonsterMovie> sameTitle = moviesWithTitle(title);
+        if (sameTitle.isEmpty()) {
+            System.err.println("Error: Movie not found.");
+            return false;
+        }
+        return sameTitle.get(0).addCharacters(batch);
+    }
+
+    /**
+     * Performs an action for the title and release year of every movie in the collection, in insertion order.
+     * @param action the action to perform, given the title and the release year
+     */
+    @Override
+    public void forEachMovieTitle(ObjIntConsumer<String> action) {
+        for (MonsterMovie movie : movies) {
+            action.accept(movie.getTitle(), movie.getYearReleased());
+        }
+    }
+
+    /**
+     * Performs an action for every movie in the collection, in insertion order.
+     * @param action the action to perform
+     */
+    @Override
+    public void forEachMovie(Consumer<MonsterMovie> action) {
+        movies.forEach(action);
+    }
+
+    /**
+     * Finds the movies released between two years, both inclusive, ordered by release year.
+     * @param fromYear the first release year of the range
+     * @param toYear the last release year of the range
+     * @return the movies released in the range, or an empty list if there are none
+     */
+    @Override
+    public List<MonsterMovie> findMoviesByYearRange(int fromYear, int toYear) {
+        List<MonsterMovie> found = new ArrayList<>();
+        if (fromYear <= toYear) {
+            for (Set<MonsterMovie> sameYear : moviesByYear.subMap(fromYear, true, toYear, true).values()) {
+                found.addAll(sameYear);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Removes movies from the collection based on the title entered by the user.
+     * @param enteredTitle the title of the movie to remove
+     * @return the number of movies removed
+     */
+    public int removeMovieByTitle(String enteredTitle) {
+        if (enteredTitle == null || enteredTitle.isEmpty()) {
+            System.err.println("Error: Title cannot be null or empty.");
+            return 0;
+        }
+        return removeAllWithTitle(enteredTitle);
+    }
+
+    /**
+     * Removes movies from the collection based on the year entered by the user.
+     * @param enteredYear the year of the movies to remove
+     * @return the number of movies removed
+     */
+    public int removeMovieByYear(int enteredYear) {
+        return removeAllFromYear(enteredYear);
+    }
+
+    /**
+     * Removes movies from the collection based on a character's name.
+     * If a movie contains a character with the specified name, the movie is removed.
+     * @param enteredCharacter the name of the character used to remove movies
+     * @return the number of movies removed
+     */
+    public int removeMovieByCharacter(String enteredCharacter) {
+        if (enteredCharacter == null || enteredCharacter.isEmpty()) {
+            System.err.println("Error: Character name cannot be null/empty.");
+            return 0;
+        }
+        return removeAllWithCharacter(enteredCharacter);
+    }
+
+    /**
+     * Removes every movie with the given title, ignoring case.
+     * @param title the title of the movies to remove
+     * @return the number of movies removed
+     */
+    int removeAllWithTitle(String title) {
+        // the title index hands back every movie with the title, so only those are removed
+        String key = titleKey(title);
+        List<MonsterMovie> removed = moviesByTitle.remove(key);
+        if (removed != null) {
+            titleRemoved(key);
+            for (MonsterMovie movie : removed) {
+                removeFromYearIndex(movie, movie.getYearReleased());
+                detachMovie(movie);
+            }
+            if (journal != null) {
+                journal.moviesRemovedByTitle(title);
+            }
+        }
+        return removed == null ? 0 : removed.size();
+    }
+
+    /**
+     * Removes every movie released in the given year.
+     * @param year the release year of the movies to remove
+     * @return the number of movies removed
+     */
+    int removeAllFromYear(int year) {
+        // The year index hands back the bucket of movies released in the year, so only those movies
+        // are visited and removed from the collection and the title index.
+        Set<MonsterMovie> removed = moviesByYear.remove(year);
+        if (removed != null) {
+            for (MonsterMovie movie : removed) {
+                removeFromTitleIndex(movie, movie.getTitle());
+                detachMovie(movie);
+            }
+            if (journal != null) {
+                journal.moviesRemovedByYear(year);
+            }
+        }
+        return removed == null ? 0 : removed.size();
+    }
+
+    /**
+     * Removes every movie featuring a character with the given name, ignoring case.
+     * @param characterName the name of the character
+     * @return the number of movies removed
+     */
+    int removeAllWithCharacter(String characterName) {
+        // findMoviesByCharacter returns a copy, so detaching a movie from the character index is safe here
+        List<MonsterMovie> removed = findMoviesByCharacter(characterName);
+        for (MonsterMovie movie : removed) {
+            removeFromTitleIndex(movie, movie.getTitle());
+            removeFromYearIndex(movie, movie.getYearReleased());
+            detachMovie(movie);
+        }
+        if (journal != null && !removed.isEmpty()) {
+            journal.moviesRemovedByCharacter(characterName);
+        }
+        return removed.size();
+    }
+
+    /**
+     * Removes every movie matching a condition at once.
+     * The condition is tested on all movies before any is removed, so if it fails nothing is removed.
+     * Each title and year bucket holding removed movies is filtered once, and the removal is recorded
+     * as one atomic record in the journal if one is attached.
+     * @param filter the condition the movies to remove match
+     * @return the number of movies removed
+     */
+    public int removeMovies(Predicate<? super MonsterMovie> filter) {
+        Set<MonsterMovie> removed = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (MonsterMovie movie : movies) {
+            if (filter.test(movie)) {
+                removed.add(movie);
+            }
+        }
+        if (removed.isEmpty()) {
+            return 0;
+        }
+        Set<String> titles = new LinkedHashSet<>();
+        Set<Integer> years = new HashSet<>();
+        for (MonsterMovie movie : removed) {
+            titles.add(titleKey(movie.getTitle()));
+            years.add(movie.getYearReleased());
+        }
+        if (journal != null) {
+            // each title bucket is walked backwards, so replaying one removal leaves the ordinals of the next intact
+            journal.beginBatch();
+            for (String key : titles) {
+                List<MonsterMovie> sameTitle = moviesByTitle.get(key);
+                for (int ordinal = sameTitle.size() - 1; ordinal >= 0; ordinal--) {
+                    if (removed.contains(sameTitle.get(ordinal))) {
+                        journal.movieRemoved(sameTitle.get(ordinal).getTitle(), ordinal);
+                    }
+                }
+            }
+        }
+        for (String key : titles) {
+            List<MonsterMovie> sameTitle = moviesByTitle.get(key);
+            sameTitle.removeIf(removed::contains);
+            if (sameTitle.isEmpty()) {
+                moviesByTitle.remove(key);
+                titleRemoved(key);
+            }
+        }
+        for (int year : years) {
+            Set<MonsterMovie> sameYear = moviesByYear.get(year);
+            sameYear.removeIf(removed::contains);
+            if (sameYear.isEmpty()) {
+                moviesByYear.remove(year);
+            }
+        }
+        for (MonsterMovie movie : removed) {
+            detachMovie(movie);
+        }
+        if (journal != null) {
+            journal.endBatch();
+        }
+        return removed.size();
+    }
+
+    /**
+     * Removes one movie of the collection.
+     * @param movie the movie to remove
+     */
+    void removeMovie(MonsterMovie movie) {
+        int ordinal = titleOrdinal(movie, movie.getTitle());
+        removeFromTitleIndex(movie, movie.getTitle());
+        removeFromYearIndex(movie, movie.getYearReleased());
+        detachMovie(movie);
+        if (journal != null) {
+            journal.movieRemoved(movie.getTitle(), ordinal);
+        }
+    }
+
+    /**
+     * Removes the characters with the given name, ignoring case, from every movie with the given title.
+     * @param enteredTitle the title of the movies containing the character to remove
+     * @param characterName the name of the character to remove
+     * @return the number of characters removed
+     */
+    public int removeCharacterInAMovie(String enteredTitle, String characterName) {
+        String key = titleKey(characterName);
+        int removed = 0;
+        for (MonsterMovie movie : moviesWithTitle(enteredTitle)) {
+            // copy the characters, removing one changes the movie's list
+            for (HorrorCharacter character : new ArrayList<>(movie.getHorrorCharacters())) {
+                if (titleKey(character.getName()).equals(key)) {
+                    movie.removeCharacter(character);
+                    removed++;
+                }
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Merges a movie read separately into the collection the way findOrCreateMovie does: its characters are
+     * moved to the first movie with the same title, or the movie is added if there is no such movie yet.
+     * @param movie a movie that does not belong to a collection
+     */
+    void mergeMovie(MonsterMovie movie) {
+        List<MonsterMovie> sameTitle = moviesByTitle.get(titleKey(movie.getTitle()));
+        if (sameTitle == null) {
+            addMovie(movie);
+        } else {
+            movie.moveCharactersTo(sameTitle.get(0));
+        }
+    }
+
+    /**
+     * Finds a movie in the collection by its title and year. If not found, creates a new movie.
+     * @param title the title of the movie
+     * @param yearReleased the release year of the movie
+     * @return the found MonsterMovie object from the file
+     */
+    MonsterMovie findOrCreateMovie(String title, int yearReleased) {
+        try {
+            List<MonsterMovie> sameTitle = moviesByTitle.get(titleKey(title));
+            if (sameTitle != null) {
+                return sameTitle.get(0);
+            }
+            MonsterMovie newMovie = new MonsterMovie(title, yearReleased);
+            addMovie(newMovie);
+            return newMovie;
+        } catch (Exception e) {
+            System.err.println("Error");
+        }
+        return null;
+    }
+
+    /**
+     * Finds the movies featuring a character with the given name, ignoring case, using the character index.
+     * @param characterName the name of the character to look up
+     * @return the movies featuring the character, or an empty list if there are none
+     */
+    @Override
+    public List<MonsterMovie> findMoviesByCharacter(String characterName) {
+        Map<MonsterMovie, Integer> featuring = moviesByCharacter.get(titleKey(characterName));
+        return featuring == null ? new ArrayList<>() : new ArrayList<>(featuring.keySet());
+    }
+
+    /**
+     * Finds the characters of all movies whose age is between two ages, both inclusive, using the age index.
+     * Only the matching characters are visited, so "older than 500" is findCharactersByAge(501, Integer.MAX_VALUE).
+     * @param minAge the lowest age of the range
+     * @param maxAge the highest age of the range
+     * @return the matching characters ordered by age, or an empty list if there are none
+     */
+    public List<HorrorCharacter> findCharactersByAge(int minAge, int maxAge) {
+        return findInRange(charactersByAge, minAge, maxAge);
+    }
+
+    /**
+     * Finds the characters of all movies reborn between two years, both inclusive, using the rebirth index.
+     * Only the matching characters are visited.
+     * @param fromYear the first rebirth year of the range
+     * @param toYear the last rebirth year of the range
+     * @return the matching characters ordered by rebirth year, or an empty list if there are none
+     */
+    public List<HorrorCharacter> findCharactersByRebirth(int fromYear, int toYear) {
+        return findInRange(charactersByRebirth, fromYear, toYear);
+    }
+
+    private static List<HorrorCharacter> findInRange(NavigableMap<Integer, Set<HorrorCharacter>> index,
+                                                     int from, int to) {
+        List<HorrorCharacter> found = new ArrayList<>();
+        if (from <= to) {
+            for (Set<HorrorCharacter> bucket : index.subMap(from, true, to, true).values()) {
+                found.addAll(bucket);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Gets the most common subtypes among all characters of the collection, without scanning the movies.
+     * @param k the maximum number of subtypes to return
+     * @return up to k subtypes with their character counts, most common first
+     */
+    public List<Map.Entry<String, Integer>> getTopSubtypes(int k) {
+        return subtypeCounts.top(k);
+    }
+
+    /**
+     * Gets the most common vulnerabilities among all characters of the collection, without scanning the movies.
+     * @param k the maximum number of vulnerabilities to return
+     * @return up to k vulnerabilities with their character counts, most common first
+     */
+    public List<Map.Entry<String, Integer>> getTopVulnerabilities(int k) {
+        return vulnerabilityCounts.top(k);
+    }
+
+    /**
+     * Gets the number of characters in all movies of the collection, without scanning the movies.
+     * @return the number of characters
+     */
+    public int getCharacterCount() {
+        return characterCount;
+    }
+
+    /**
+     * Takes an immutable snapshot of the collection, which saves, exports and reports can use on another thread
+     * while the collection keeps being changed, see MovieSnapshot. Only the chunks of movies changed since
+     * the previous snapshot are copied, and the previous snapshot is returned if nothing has changed.
+     * Like every other method, it must not run at the same time as a change to the collection.
+     * @return the snapshot of the collection as it is now
+     */
+    public MovieSnapshot snapshot() {
+        if (lastSnapshot != null) {
+            return lastSnapshot;
+        }
+        if (snapshotChunks == null) {
+            snapshotChunks = new ArrayList<>();
+            for (MonsterMovie movie : movies) {
+                snapshotChunk(movie).movies.add(movie);
+            }
+        }
+        List<MovieSnapshot.Chunk> frozen = new ArrayList<>(snapshotChunks.size());
+        for (SnapshotChunk chunk : snapshotChunks) {
+            if (chunk != null && !chunk.movies.isEmpty()) {
+                if (chunk.frozen == null) {
+                    chunk.frozen = MovieSnapshot.freeze(chunk.movies);
+                }
+                frozen.add(chunk.frozen);
+            }
+        }
+        lastSnapshot = new MovieSnapshot(version, frozen);
+        return lastSnapshot;
+    }
+
+    /**
+     * Gets the version of the collection, the number of changes made to it since it was created.
+     * Two snapshots with the same version hold the same movies.
+     * @return the version
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Finds the movies whose title matches the given title, ignoring case, using the title index.
+     * @param title the title to look up
+     * @return a copy of the matching movies in insertion order, so the movies can be renamed while going
+     * through them, or an empty list if there are none
+     */
+    @Override
+    public List<MonsterMovie> findMoviesByTitle(String title) {
+        return new ArrayList<>(moviesWithTitle(title));
+    }
+
+    /**
+     * Completes a title: finds the titles of the collection starting with a prefix, ignoring case.
+     * Each title shared by several movies is returned once.
+     * @param prefix the start of the title
+     * @param limit the maximum number of titles to return
+     * @return up to limit titles in alphabetical order, or an empty list if none starts with the prefix
+     */
+    public List<String> completeTitle(String prefix, int limit) {
+        List<String> titles = titleSearch().complete(titleKey(prefix), limit);
+        titles.replaceAll(this::displayTitle);
+        return titles;
+    }
+
+    /**
+     * Finds the titles of the collection most similar to a partial or misspelled title, ignoring case,
+     * such as "frankenstien" for "Frankenstein Is Back". Each title shared by several movies is returned once.
+     * See TitleSearch for how titles are matched and ranked.
+     * @param query the title as typed
+     * @param limit the maximum number of titles to return
+     * @return up to limit titles, best match first, or an empty list if none is similar enough
+     */
+    public List<String> searchTitles(String query, int limit) {
+        List<String> titles = titleSearch().search(titleKey(query), limit);
+        titles.replaceAll(this::displayTitle);
+        return titles;
+    }
+
+    /**
+     * Gets the movies whose title matches the given title, ignoring case, straight from the title index.
+     * @param title the title to look up
+     * @return the title index bucket in insertion order, or an empty list if there are none
+     */
+    private List<MonsterMovie> moviesWithTitle(String title) {
+        List<MonsterMovie> sameTitle = moviesByTitle.get(titleKey(title));
+        return sameTitle == null ? Collections.emptyList() : sameTitle;
+    }
+
+    /**
+     * Finds a movie by its title and its position among the movies sharing that title.
+     * Together they identify a movie even when several movies have the same title, see MovieJournal.
+     * @param title the title of the movie, ignoring case
+     * @param ordinal the position of the movie among the movies with that title, in insertion order
+     * @return the movie, or null if there is no such movie
+     */
+    MonsterMovie findMovie(String title, int ordinal) {
+        List<MonsterMovie> sameTitle = moviesWithTitle(title);
+        return ordinal >= 0 && ordinal < sameTitle.size() ? sameTitle.get(ordinal) : null;
+    }
+
+    /**
+     * Gets the position of a movie among the movies sharing the given title, the reverse of findMovie.
+     * @param movie the movie to look for
+     * @param title the title the movie is indexed under
+     * @return the position of the movie, or -1 if it is not indexed under the title
+     */
+    private int titleOrdinal(MonsterMovie movie, String title) {
+        return moviesWithTitle(title).indexOf(movie);
+    }
+
+    /**
+     * Gets the movies of the collection in insertion order.
+     * @return an unmodifiable view of the movies
+     */
+    Collection<MonsterMovie> getMovies() {
+        return Collections.unmodifiableCollection(movies);
+    }
+
+    /**
+     * Attaches the journal that records every change to the collection, or detaches it.
+     * @param journal the journal, or null to stop recording changes
+     */
+    void setJournal(CollectionJournal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Adds a movie to the title index. The movies sharing a title are kept in the order they were added
+     * to the collection, also when a renamed movie joins them, so their positions survive a snapshot.
+     * @param movie the movie to add to the index
+     */
+    private void addToTitleIndex(MonsterMovie movie) {
+        List<MonsterMovie> sameTitle = moviesByTitle.computeIfAbsent(titleKey(movie.getTitle()), this::newTitleBucket);
+        int index = sameTitle.size();
+        while (index > 0 && sameTitle.get(index - 1).getSequence() > movie.getSequence()) {
+            index--;
+        }
+        sameTitle.add(index, movie);
+    }
+
+    /**
+     * Removes a movie from the title index, dropping the index entry once no movie uses the title.
+     * @param movie the movie to remove from the index
+     * @param title the title the movie is indexed under
+     */
+    private void removeFromTitleIndex(MonsterMovie movie, String title) {
+        String key = titleKey(title);
+        List<MonsterMovie> sameTitle = moviesByTitle.get(key);
+        if (sameTitle != null) {
+            sameTitle.remove(movie);
+            if (sameTitle.isEmpty()) {
+                moviesByTitle.remove(key);
+                titleRemoved(key);
+            }
+        }
+    }
+
+    /**
+     * Removes a movie that is already out of the title and year indexes from the collection,
+     * drops its characters from the character index and stops listening to it.
+     * @param movie the movie to detach
+     */
+    private void detachMovie(MonsterMovie movie) {
+        movies.remove(movie);
+        movie.setListener(null);
+        snapshotRemoved(movie);
+        for (HorrorCharacter character : movie.getHorrorCharacters()) {
+            removeFromCharacterIndex(movie, character.getName());
+            removeFromRangeIndexes(character, character.getAge(), character.getRebirth());
+            subtypeCounts.decrement(character.getSubtype());
+            vulnerabilityCounts.decrement(character.getVulnerability());
+            characterCount--;
+        }
+    }
+
+    /**
+     * Counts a change to a movie of the collection, dropping the frozen copy of its chunk and the last snapshot.
+     * @param movie the added, removed or changed movie
+     */
+    private void movieChanged(MonsterMovie movie) {
+        version++;
+        lastSnapshot = null;
+        if (snapshotChunks != null) {
+            snapshotChunk(movie).frozen = null;
+        }
+    }
+
+    /**
+     * Counts the addition of a movie that has just been given its sequence, adding it to the chunk of its
+     * sequence once snapshots are taken. Sequences only grow, so the movie goes at the end of its chunk,
+     * which keeps the chunk in collection order.
+     * @param movie the added movie
+     */
+    private void snapshotAdded(MonsterMovie movie) {
+        if (snapshotChunks != null) {
+            snapshotChunk(movie).movies.add(movie);
+        }
+        movieChanged(movie);
+    }
+
+    /**
+     * Counts the removal of a movie, removing it from the chunk of its sequence once snapshots are taken.
+     * @param movie the removed movie
+     */
+    private void snapshotRemoved(MonsterMovie movie) {
+        movieChanged(movie);
+        if (snapshotChunks != null) {
+            snapshotChunk(movie).movies.remove(movie);
+        }
+    }
+
+    /**
+     * Gets the chunk of the snapshots a movie belongs to by its sequence, creating it if needed.
+     * @param movie the movie
+     * @return the chunk
+     */
+    private SnapshotChunk snapshotChunk(MonsterMovie movie) {
+        int index = (int) (movie.getSequence() >>> SNAPSHOT_CHUNK_SHIFT);
+        while (snapshotChunks.size() <= index) {
+            snapshotChunks.add(null);
+        }
+        SnapshotChunk chunk = snapshotChunks.get(index);
+        if (chunk == null) {
+            chunk = new SnapshotChunk();
+            snapshotChunks.set(index, chunk);
+        }
+        return chunk;
+    }
+
+    /**
+     * Counts one more character with the given name in a movie.
+     * @param movie the movie featuring the character
+     * @param characterName the name of the character
+     */
+    private void addToCharacterIndex(MonsterMovie movie, String characterName) {
+        moviesByCharacter.computeIfAbsent(titleKey(characterName), key -> new LinkedHashMap<>())
+                .merge(movie, 1, Integer::sum);
+    }
+
+    /**
+     * Counts one character less with the given name in a movie, dropping the movie from the index
+     * entry once none of its characters has the name any more.
+     * @param movie the movie featuring the character
+     * @param characterName the name of the character
+     */
+    private void removeFromCharacterIndex(MonsterMovie movie, String characterName) {
+        String key = titleKey(characterName);
+        Map<MonsterMovie, Integer> featuring = moviesByCharacter.get(key);
+        if (featuring != null) {
+            featuring.computeIfPresent(movie, (m, count) -> count > 1 ? count - 1 : null);
+            if (featuring.isEmpty()) {
+                moviesByCharacter.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Creates the bucket of the title index for a title that is new to the collection.
+     * @param key the normalized title
+     * @return the empty bucket
+     */
+    private List<MonsterMovie> newTitleBucket(String key) {
+        if (titleSearch != null) {
+            titleSearch.add(key);
+        }
+        return new ArrayList<>();
+    }
+
+    /**
+     * Drops a title the collection no longer has any movie with from the title search.
+     * @param key the normalized title
+     */
+    private void titleRemoved(String key) {
+        if (titleSearch != null) {
+            titleSearch.remove(key);
+        }
+    }
+
+    /**
+     * Gets the title search, building it from the title index the first time.
+     * @return the title search
+     */
+    private TitleSearch titleSearch() {
+        if (titleSearch == null) {
+            titleSearch = new TitleSearch();
+            moviesByTitle.keySet().forEach(titleSearch::add);
+        }
+        return titleSearch;
+    }
+
+    /**
+     * Gets the title shown for a key of the title index, the title of the first movie with it.
+     * @param key the normalized title
+     * @return the title
+     */
+    private String displayTitle(String key) {
+        return moviesByTitle.get(key).get(0).getTitle();
+    }
+
+    /**
+     * Adds a character to the age and rebirth range indexes.
+     * @param character the character to add
+     */
+    private void addToRangeIndexes(HorrorCharacter character) {
+        addToRangeIndex(charactersByAge, character.getAge(), character);
+        addToRangeIndex(charactersByRebirth, character.getRebirth(), character);
+    }
+
+    /**
+     * Removes a character from the age and rebirth range indexes.
+     * @param character the character to remove
+     * @param age the age the character is indexed under
+     * @param rebirth the rebirth year the character is indexed under
+     */
+    private void removeFromRangeIndexes(HorrorCharacter character, int age, int rebirth) {
+        removeFromRangeIndex(charactersByAge, age, character);
+        removeFromRangeIndex(charactersByRebirth, rebirth, character);
+    }
+
+    private static void addToRangeIndex(NavigableMap<Integer, Set<HorrorCharacter>> index, int key,
+                                        HorrorCharacter character) {
+        index.computeIfAbsent(key, k -> new LinkedHashSet<>()).add(character);
+    }
+
+    /**
+     * Removes a character from its bucket of a range index, dropping the bucket once it is empty.
+     */
+    private static void removeFromRangeIndex(NavigableMap<Integer, Set<HorrorCharacter>> index, int key,
+                                             HorrorCharacter character) {
+        Set<HorrorCharacter> bucket = index.get(key);
+        if (bucket != null) {
+            bucket.remove(character);
+            if (bucket.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Adds a movie to the bucket of its release year, creating the bucket if the year is new.
+     * @param movie the movie to add to the index
+     */
+    private void addToYearIndex(MonsterMovie movie) {
+        moviesByYear.computeIfAbsent(movie.getYearReleased(), year -> new LinkedHashSet<>()).add(movie);
+    }
+
+    /**
+     * Removes a movie from the bucket of its release year, dropping the bucket once it is empty.
+     * @param movie the movie to remove from the index
+     * @param year the release year the movie is indexed under
+     */
+    private void removeFromYearIndex(MonsterMovie movie, int year) {
+        Set<MonsterMovie> sameYear = moviesByYear.get(year);
+        if (sameYear != null) {
+            sameYear.remove(movie);
+            if (sameYear.isEmpty()) {
+                moviesByYear.remove(year);
+            }
+        }
+    }
+
+    /**
+     * Normalizes a title or character name into the key used by the indexes and every comparison of names.
+     * Each code point is folded the way equalsIgnoreCase compares them, upper-cased and then lower-cased,
+     * so two names have the same key exactly when equalsIgnoreCase finds them equal, such as "İ" and "i".
+     * A movie may be given a null title, which is indexed like an empty one.
+     * @param title the title or name to normalize
+     * @return the folded title, the title itself if it is already folded, or an empty string for null
+     */
+    static String titleKey(String title) {
+        if (title == null) {
+            return "";
+        }
+        int length = title.length();
+        int i = 0;
+        while (i < length) {
+            int c = title.codePointAt(i);
+            if (foldCase(c) != c) {
+                break;
+            }
+            i += Character.charCount(c);
+        }
+        if (i == length) {
+            return title;
+        }
+        StringBuilder key = new StringBuilder(length).append(title, 0, i);
+        while (i < length) {
+            int c = title.codePointAt(i);
+            key.appendCodePoint(foldCase(c));
+            i += Character.charCount(c);
+        }
+        return key.toString();
+    }
+
+    private static int foldCase(int codePoint) {
+        return Character.toLowerCase(Character.toUpperCase(codePoint));
+    }
+
+    /**
+     * Updates the indexes, and records the change in the journal if one is attached,
+     * when a movie in the collection or one of its characters changes.
+     */
+    private class IndexUpdater implements MovieListener {
+        @Override
+        public void characterAdded(MonsterMovie movie, HorrorCharacter character) {
+            movieChanged(movie);
+            addToCharacterIndex(movie, character.getName());
+            addToRangeIndexes(character);
+            subtypeCounts.increment(character.getSubtype());
+            vulnerabilityCounts.increment(character.getVulnerability());
+            characterCount++;
+            if (journal != null) {
+                journal.characterAdded(movie.getTitle(), titleOrdinal(movie, movie.getTitle()), character);
+            }
+        }
+
+        @Override
+        public void charactersAdded(MonsterMovie movie, List<HorrorCharacter> characters) {
+            movieChanged(movie);
+            int ordinal = journal == null ? -1 : titleOrdinal(movie, movie.getTitle());
+            if (journal != null) {
+                journal.beginBatch();
+            }
+            for (HorrorCharacter character : characters) {
+                addToCharacterIndex(movie, character.getName());
+                addToRangeIndexes(character);
+                subtypeCounts.increment(character.getSubtype());
+                vulnerabilityCounts.increment(character.getVulnerability());
+                characterCount++;
+                if (journal != null) {
+                    journal.characterAdded(movie.getTitle(), ordinal, character);
+                }
+            }
+            if (journal != null) {
+                journal.endBatch();
+            }
+        }
+
+        @Override
+        public void characterRemoved(MonsterMovie movie, HorrorCharacter character) {
+            movieChanged(movie);
+            removeFromCharacterIndex(movie, character.getName());
+            removeFromRangeIndexes(character, character.getAge(), character.getRebirth());
+            subtypeCounts.decrement(character.getSubtype());
+            vulnerabilityCounts.decrement(character.getVulnerability());
+            characterCount--;
+            if (journal != null) {
+                journal.characterRemoved(movie.getTitle(), titleOrdinal(movie, movie.getTitle()), character);
+            }
+        }
+
+        @Override
+        public void characterUpdated(MonsterMovie movie, HorrorCharacter character, HorrorCharacter previous) {
+            movieChanged(movie);
+            if (!character.getName().equals(previous.getName())) {
+                removeFromCharacterIndex(movie, previous.getName());
+                addToCharacterIndex(movie, character.getName());
+            }
+            if (character.getAge() != previous.getAge()) {
+                removeFromRangeIndex(charactersByAge, previous.getAge(), character);
+                addToRangeIndex(charactersByAge, character.getAge(), character);
+            }
+            if (character.getRebirth() != previous.getRebirth()) {
+                removeFromRangeIndex(charactersByRebirth, previous.getRebirth(), character);
+                addToRangeIndex(charactersByRebirth, character.getRebirth(), character);
+            }
+            if (!character.getSubtype().equals(previous.getSubtype())) {
+                subtypeCounts.decrement(previous.getSubtype());
+                subtypeCounts.increment(character.getSubtype());
+            }
+            if (!character.getVulnerability().equals(previous.getVulnerability())) {
+                vulnerabilityCounts.decrement(previous.getVulnerability());
+                vulnerabilityCounts.increment(character.getVulnerability());
+            }
+            if (journal != null) {
+                journal.characterUpdated(movie.getTitle(), titleOrdinal(movie, movie.getTitle()), previous, character);
+            }
+        }
+
+        @Override
+        public void movieUpdated(MonsterMovie movie, String previousTitle, int previousYear) {
+            movieChanged(movie);
+            int ordinal = titleOrdinal(movie, previousTitle);
+            if (!titleKey(movie.getTitle()).equals(titleKey(previousTitle))) {
+                removeFromTitleIndex(movie, previousTitle);
+                addToTitleIndex(movie);
+            }
+            if (movie.getYearReleased() != previousYear) {
+                removeFromYearIndex(movie, previousYear);
+                addToYearIndex(movie);
+            }
+            if (journal != null) {
+                journal.movieUpdated(previousTitle, ordinal, movie.getTitle(), movie.getYearReleased());
+            }
+        }
+    }
+
+    /**
+     * The live movies of one chunk of the snapshots and their frozen copies, null once one of them has changed.
+     */
+    private static final class SnapshotChunk {
+        private final List<MonsterMovie> movies = new ArrayList<>();
+        private MovieSnapshot.Chunk frozen;
+    }
+}
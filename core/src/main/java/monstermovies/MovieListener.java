@@ -0,0 +1,59 @@
+package monstermovies;
+
+import java.util.List;
+
+/**
+ * The MovieListener interface is implemented by anything that keeps data derived from a
+ * MonsterMovie or its characters, such as the indexes of a MovieCollection.
+ * A MonsterMovie notifies its listener after every change to itself or its characters, so the
+ * derived data can be updated without scanning the movie again.
+ */
+interface MovieListener {
+
+    /**
+     * Called after a character has been added to a movie.
+     *
+     * @param movie     the movie the character was added to
+     * @param character the character that was added
+     */
+    void characterAdded(MonsterMovie movie, HorrorCharacter character);
+
+    /**
+     * Called after several characters have been added to a movie at once, see MonsterMovie.addCharacters.
+     * By default the characters are passed on one by one to characterAdded.
+     *
+     * @param movie      the movie the characters were added to
+     * @param characters the characters that were added, in the order they were given
+     */
+    default void charactersAdded(MonsterMovie movie, List<HorrorCharacter> characters) {
+        for (HorrorCharacter character : characters) {
+            characterAdded(movie, character);
+        }
+    }
+
+    /**
+     * Called after a character has been removed from a movie.
+     *
+     * @param movie     the movie the character was removed from
+     * @param character the character that was removed
+     */
+    void characterRemoved(MonsterMovie movie, HorrorCharacter character);
+
+    /**
+     * Called after one attribute of a character of a movie has changed.
+     *
+     * @param movie     the movie the character belongs to
+     * @param character the changed character, already holding its new attributes
+     * @param previous  a detached copy of the character holding the attributes from before the change
+     */
+    void characterUpdated(MonsterMovie movie, HorrorCharacter character, HorrorCharacter previous);
+
+    /**
+     * Called after the title or the release year of a movie has changed.
+     *
+     * @param movie         the changed movie, already holding its new title and year
+     * @param previousTitle the title of the movie before the change
+     * @param previousYear  the release year of the movie before the change
+     */
+    void movieUpdated(MonsterMovie movie, String previousTitle, int previousYear);
+}
@@ -0,0 +1,231 @@
+package monstermovies;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * MovieSnapshot is an immutable view of a MovieCollection as it was at one moment, taken with
+ * MovieCollection.snapshot. Saves, exports and long reports can run against a snapshot on another thread
+ * while the collection keeps being changed, without locking and without seeing half of a change.
+ *
+ * <p>The movies of the snapshot are frozen copies, grouped in chunks by the order they were added to the
+ * collection. A chunk no movie of which has changed since the previous snapshot is shared with it, so
+ * taking a snapshot after a few changes only copies the changed chunks and an array of references to the
+ * others, and a snapshot of an unchanged collection is the previous snapshot itself.
+ *
+ * <p>The frozen movies are never handed out: the queries return new copies, which the caller may keep
+ * or change. Queries other than forEachMovieTitle scan the snapshot, as it has no indexes of its own.
+ * A snapshot can be queried from several threads at once.
+ */
+public final class MovieSnapshot implements MovieCatalog {
+
+    private final long version;
+    private final Chunk[] chunks;
+    private final int movieCount;
+    private final int characterCount;
+
+    MovieSnapshot(long version, List<Chunk> chunks) {
+        this.version = version;
+        this.chunks = chunks.toArray(new Chunk[0]);
+        int movies = 0;
+        int characters = 0;
+        for (Chunk chunk : this.chunks) {
+            movies += chunk.movies.length;
+            characters += chunk.characterCount;
+        }
+        this.movieCount = movies;
+        this.characterCount = characters;
+    }
+
+    /**
+     * Freezes some movies of a collection into a chunk that can be shared by several snapshots.
+     *
+     * @param movies the movies, in collection order
+     * @return the chunk holding frozen copies of the movies
+     */
+    static Chunk freeze(List<MonsterMovie> movies) {
+        MonsterMovie[] frozen = new MonsterMovie[movies.size()];
+        int characters = 0;
+        for (int i = 0; i < frozen.length; i++) {
+            frozen[i] = movies.get(i).copy();
+            characters += frozen[i].getHorrorCharacters().size();
+        }
+        return new Chunk(frozen, characters);
+    }
+
+    /**
+     * Gets the version of the collection the snapshot was taken from, see MovieCollection.getVersion.
+     *
+     * @return the version
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Gets the number of movies in the snapshot.
+     *
+     * @return the number of movies
+     */
+    public int getMovieCount() {
+        return movieCount;
+    }
+
+    /**
+     * Gets the number of characters in the snapshot.
+     *
+     * @return the number of characters
+     */
+    public int getCharacterCount() {
+        return characterCount;
+    }
+
+    /**
+     * Performs an action for the title and release year of every movie, in collection order, without copying the movies.
+     *
+     * @param action the action to perform, given the title and the release year
+     */
+    @Override
+    public void forEachMovieTitle(ObjIntConsumer<String> action) {
+        for (Chunk chunk : chunks) {
+            for (MonsterMovie movie : chunk.movies) {
+                action.accept(movie.getTitle(), movie.getYearReleased());
+            }
+        }
+    }
+
+    /**
+     * Performs an action for a copy of every movie, in collection order, copying one movie at a time.
+     *
+     * @param action the action to perform
+     */
+    @Override
+    public void forEachMovie(Consumer<MonsterMovie> action) {
+        for (Chunk chunk : chunks) {
+            for (MonsterMovie movie : chunk.movies) {
+                action.accept(movie.copy());
+            }
+        }
+    }
+
+    /**
+     * Finds the movies with the given title, ignoring case, by scanning the titles.
+     *
+     * @param title the title to look up
+     * @return copies of the movies with the title in collection order, or an empty list if there are none
+     */
+    @Override
+    public List<MonsterMovie> findMoviesByTitle(String title) {
+        String key = MovieCollection.titleKey(title);
+        List<MonsterMovie> found = new ArrayList<>();
+        for (Chunk chunk : chunks) {
+            for (MonsterMovie movie : chunk.movies) {
+                if (MovieCollection.titleKey(movie.getTitle()).equals(key)) {
+                    found.add(movie.copy());
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Finds the movies released between two years, both inclusive, by scanning the release years.
+     *
+     * @param fromYear the first release year of the range
+     * @param toYear   the last release year of the range
+     * @return copies of the movies released in the range ordered by release year, movies of the same year
+     * in collection order, or an empty list if there are none
+     */
+    @Override
+    public List<MonsterMovie> findMoviesByYearRange(int fromYear, int toYear) {
+        List<MonsterMovie> found = new ArrayList<>();
+        for (Chunk chunk : chunks) {
+            for (MonsterMovie movie : chunk.movies) {
+                if (movie.getYearReleased() >= fromYear && movie.getYearReleased() <= toYear) {
+                    found.add(movie.copy());
+                }
+            }
+        }
+        // a stable sort, so movies of the same year keep their collection order
+        found.sort(Comparator.comparingInt(MonsterMovie::getYearReleased));
+        return found;
+    }
+
+    /**
+     * Finds the movies featuring a character with the given name, ignoring case, by scanning the characters.
+     *
+     * @param characterName the name of the character to look up
+     * @return copies of the movies featuring the character, or an empty list if there are none
+     */
+    @Override
+    public List<MonsterMovie> findMoviesByCharacter(String characterName) {
+        String key = MovieCollection.titleKey(characterName);
+        List<MonsterMovie> found = new ArrayList<>();
+        for (Chunk chunk : chunks) {
+            for (MonsterMovie movie : chunk.movies) {
+                for (HorrorCharacter character : movie.getHorrorCharacters()) {
+                    if (MovieCollection.titleKey(character.getName()).equals(key)) {
+                        found.add(movie.copy());
+                        break;
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Gets the frozen movies of the snapshot, for the writers of the persistence module and for MovieAnalytics.
+     * The movies are shared with other snapshots and must not be changed.
+     *
+     * @return an unmodifiable collection of the frozen movies in collection order
+     */
+    Collection<MonsterMovie> getMovies() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<MonsterMovie> iterator() {
+                return new Iterator<>() {
+                    private int chunk;
+                    private int index;
+
+                    @Override
+                    public boolean hasNext() {
+                        return chunk < chunks.length;
+                    }
+
+                    @Override
+                    public MonsterMovie next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        MonsterMovie movie = chunks[chunk].movies[index++];
+                        if (index == chunks[chunk].movies.length) {
+                            chunk++;
+                            index = 0;
+                        }
+                        return movie;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return movieCount;
+            }
+        };
+    }
+
+    /**
+     * Frozen copies of consecutive movies of a collection, never empty.
+     */
+    static final class Chunk {
+        private final MonsterMovie[] movies;
+        private final int characterCount;
+
+        private Chunk(MonsterMovie[] movies, int characterCount) {
+            this.movies = movies;
+            this.characterCount = characterCount;
+        }
+    }
+}
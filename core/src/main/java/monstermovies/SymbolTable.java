@@ -0,0 +1,171 @@
+package monstermovies;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * SymbolTable canonicalizes strings drawn from a small vocabulary, such as character subtypes and
+ * vulnerabilities, so every occurrence of a value shares one String instead of each row read from
+ * a file holding its own copy.
+ * Every distinct value is given a small integer code, in the order the values are first seen, and
+ * the table counts the duplicates it replaced to estimate how much heap interning saved.
+ *
+ * <p>A table stops taking new values once it holds its capacity, and from then on hands unknown
+ * values back unchanged, so free text entered by mistake cannot grow it without bound.
+ * A table can be used from several threads at once.
+ */
+public final class SymbolTable {
+
+    /**
+     * The table HorrorCharacter canonicalizes its subtypes through.
+     */
+    public static final SymbolTable SUBTYPES = new SymbolTable("subtypes", 1 << 16);
+
+    /**
+     * The table HorrorCharacter canonicalizes its vulnerabilities through.
+     */
+    public static final SymbolTable VULNERABILITIES = new SymbolTable("vulnerabilities", 1 << 16);
+
+    private final String name;
+    private final int capacity;
+    private final Map<String, Integer> codes = new ConcurrentHashMap<>();
+    // written only while holding the table's monitor, and published before the code is put in codes
+    private volatile String[] symbols = new String[16];
+    private int size;
+    private final LongAdder duplicates = new LongAdder();
+    private final LongAdder bytesSaved = new LongAdder();
+
+    /**
+     * Constructs an empty symbol table.
+     *
+     * @param name     the name of the table, used in its report
+     * @param capacity the maximum number of distinct values the table takes
+     */
+    public SymbolTable(String name, int capacity) {
+        this.name = name;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Gets the canonical instance of a value, adding the value to the table if it is new.
+     *
+     * @param value the value to canonicalize, may be null
+     * @return the shared instance equal to the value, or the value itself if it is null, new,
+     *         or the table is full
+     */
+    public String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        int code = code(value);
+        if (code < 0) {
+            return value;
+        }
+        String canonical = symbols[code];
+        if (canonical != value) {
+            duplicates.increment();
+            bytesSaved.add(retainedSize(value));
+        }
+        return canonical;
+    }
+
+    /**
+     * Gets the code of a value, adding the value to the table if it is new.
+     *
+     * @param value the value to look up
+     * @return the code of the value, or -1 if the value is new and the table is full
+     */
+    public int code(String value) {
+        Integer code = codes.get(value);
+        return code != null ? code : add(value);
+    }
+
+    /**
+     * Gets the value with a given code.
+     *
+     * @param code a code returned by this table
+     * @return the canonical value with that code
+     * @throws IndexOutOfBoundsException if no value has that code
+     */
+    public String symbol(int code) {
+        String[] current = symbols;
+        if (code < 0 || code >= current.length || current[code] == null) {
+            throw new IndexOutOfBoundsException("No " + name + " symbol with code " + code);
+        }
+        return current[code];
+    }
+
+    /**
+     * Gets the number of distinct values in the table.
+     *
+     * @return the number of values
+     */
+    public int size() {
+        return codes.size();
+    }
+
+    /**
+     * Gets the number of duplicate strings replaced by their canonical instance so far.
+     *
+     * @return the number of duplicates
+     */
+    public long getDuplicateCount() {
+        return duplicates.sum();
+    }
+
+    /**
+     * Estimates the heap saved by interning so far: the size of every duplicate string replaced by its
+     * canonical instance, assuming a 64-bit JVM with compressed pointers and compact strings.
+     *
+     * @return the estimated number of bytes saved
+     */
+    public long getBytesSaved() {
+        return bytesSaved.sum();
+    }
+
+    /**
+     * Describes the table and the heap it saved.
+     *
+     * @return a one-line report
+     */
+    @Override
+    public String toString() {
+        return "Symbol table " + name + ": " + size() + " values, " + getDuplicateCount() +
+                " duplicates replaced, about " + (getBytesSaved() / 1024) + " KB saved";
+    }
+
+    private synchronized int add(String value) {
+        Integer existing = codes.get(value);
+        if (existing != null) {
+            return existing;
+        }
+        if (size == capacity) {
+            return -1;
+        }
+        String[] current = symbols;
+        if (size == current.length) {
+            current = Arrays.copyOf(current, Math.min(capacity, current.length * 2));
+        }
+        current[size] = value;
+        symbols = current;
+        codes.put(value, size);
+        return size++;
+    }
+
+    /**
+     * Estimates the heap held by a string: a 24-byte String object and its byte array, which has a
+     * 16-byte header and one byte per character, or two if any character does not fit in Latin-1.
+     */
+    private static long retainedSize(String value) {
+        long length = value.length();
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > 0xFF) {
+                length *= 2;
+                break;
+            }
+        }
+        return 24 + ((16 + length + 7) & ~7L);
+    }
+}
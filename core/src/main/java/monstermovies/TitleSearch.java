@@ -0,0 +1,347 @@
+package monstermovies;
+
+import java.util.*;
+
+/**
+ * TitleSearch finds titles from what a user typed: prefix completion over the case-folded titles, and
+ * fuzzy matching through a trigram index for partial or misspelled titles. MovieCollection keeps one
+ * in sync with its title index, see MovieCollection.completeTitle and MovieCollection.searchTitles.
+ *
+ * <p>The titles are held as keys normalized by MovieCollection.titleKey. Prefix completion walks the
+ * sorted set of keys from the prefix on, so it costs a logarithmic seek plus the completions returned.
+ *
+ * <p>For fuzzy matching every key is cut into trigrams, the three-character pieces of the key padded with
+ * two spaces in front and one behind, and every trigram maps to the ids of the keys holding it. A query is
+ * cut the same way, and a key matches when it holds enough of the query's trigrams. The rarest trigrams of
+ * the query are looked up in the index to find the candidates, and the common ones, such as those of "the",
+ * are only checked against the candidates instead of walking their long id lists. Ids of removed keys are
+ * dropped lazily: their slots are cleared, and the index is rebuilt once more than half of the ids are dead.
+ *
+ * <p>Like MovieCollection, a TitleSearch is not safe for use by several threads at once.
+ */
+final class TitleSearch {
+
+    /**
+     * The smallest share of the query's trigrams a key must hold to match.
+     */
+    static final double MIN_COVERAGE = 0.5;
+
+    /**
+     * How many ids of a trigram can be walked for each candidate before looking for the trigram in the
+     * text of the candidates is cheaper.
+     */
+    private static final int SCAN_FACTOR = 8;
+
+    /**
+     * The number of dead ids below which the index is never rebuilt.
+     */
+    private static final int MIN_DEAD_FOR_REBUILD = 1024;
+
+    // the keys in sorted order, for prefix completion
+    private final NavigableSet<String> keys = new TreeSet<>();
+    // the id of every key in the trigram index
+    private final Map<String, Integer> ids = new HashMap<>();
+    // keys by id, null for the ids of removed keys
+    private String[] keysById = new String[16];
+    // the number of distinct trigrams of every key, by id
+    private int[] trigramCounts = new int[16];
+    // open addressing table from every trigram, packed by trigram(), to the ids of the keys holding it
+    // in ascending order; a slot is free while its postings are null
+    private long[] trigramSlots = new long[1024];
+    private Postings[] postingSlots = new Postings[1024];
+    private int distinctTrigrams;
+    private int nextId;
+    private int deadIds;
+    // the number of query trigrams every key holds while a search runs, all zero between searches
+    private int[] shared = new int[0];
+
+    /**
+     * Adds a key to the search.
+     *
+     * @param key a normalized title that is not in the search yet
+     */
+    void add(String key) {
+        if (!keys.add(key)) {
+            return;
+        }
+        int id = nextId++;
+        if (id == keysById.length) {
+            keysById = Arrays.copyOf(keysById, id * 2);
+            trigramCounts = Arrays.copyOf(trigramCounts, id * 2);
+        }
+        keysById[id] = key;
+        ids.put(key, id);
+        long[] trigrams = trigrams(key);
+        trigramCounts[id] = trigrams.length;
+        for (long trigram : trigrams) {
+            postings(trigram, true).add(id);
+        }
+    }
+
+    /**
+     * Removes a key from the search.
+     *
+     * @param key a normalized title
+     */
+    void remove(String key) {
+        if (!keys.remove(key)) {
+            return;
+        }
+        keysById[ids.remove(key)] = null;
+        deadIds++;
+        if (deadIds > MIN_DEAD_FOR_REBUILD && deadIds > keys.size()) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Finds the keys starting with a prefix.
+     *
+     * @param prefix the normalized prefix
+     * @param limit  the maximum number of keys to return
+     * @return up to limit keys starting with the prefix, in sorted order
+     */
+    List<String> complete(String prefix, int limit) {
+        List<String> found = new ArrayList<>(Math.min(Math.max(limit, 0), 64));
+        for (String key : keys.tailSet(prefix, true)) {
+            if (found.size() >= limit || !key.startsWith(prefix)) {
+                break;
+            }
+            found.add(key);
+        }
+        return found;
+    }
+
+    /**
+     * Finds the keys most similar to a query, holding at least MIN_COVERAGE of its trigrams.
+     * Keys are ranked by the share of the query's trigrams they hold, then by how few other trigrams
+     * they have, so an exact match comes first and a title the query is the start of comes soon after.
+     *
+     * @param query the normalized query
+     * @param limit the maximum number of keys to return
+     * @return up to limit keys, best match first
+     */
+    List<String> search(String query, int limit) {
+        long[] trigrams = trigrams(query);
+        if (trigrams.length == 0 || limit <= 0) {
+            return new ArrayList<>();
+        }
+        // rarest first: a key holding none of the `seeds` rarest trigrams holds fewer than `needed` of them,
+        // so looking up only those trigrams finds every candidate
+        Postings[] lists = new Postings[trigrams.length];
+        Integer[] order = new Integer[trigrams.length];
+        for (int i = 0; i < trigrams.length; i++) {
+            lists[i] = postings(trigrams[i], false);
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingInt(i -> lists[i] == null ? 0 : lists[i].size));
+        int needed = (int) Math.ceil(MIN_COVERAGE * trigrams.length);
+        int seeds = trigrams.length - needed + 1;
+
+        if (shared.length < keysById.length) {
+            shared = new int[keysById.length];
+        }
+        int[] candidates = new int[16];
+        int candidateCount = 0;
+        for (int s = 0; s < seeds; s++) {
+            Postings list = lists[order[s]];
+            if (list != null) {
+                for (int i = 0; i < list.size; i++) {
+                    int id = list.ids[i];
+                    if (keysById[id] != null && shared[id]++ == 0) {
+                        if (candidateCount == candidates.length) {
+                            candidates = Arrays.copyOf(candidates, candidateCount * 2);
+                        }
+                        candidates[candidateCount++] = id;
+                    }
+                }
+            }
+        }
+        // the other trigrams only count for the candidates, each one either by walking its ids when they are
+        // few compared to the candidates or else by looking for the trigram in the text of every candidate
+        String[] texts = null;
+        for (int s = seeds; s < trigrams.length && candidateCount > 0; s++) {
+            Postings list = lists[order[s]];
+            if (list == null) {
+                continue;
+            }
+            if (list.size <= candidateCount * SCAN_FACTOR) {
+                for (int i = 0; i < list.size; i++) {
+                    int id = list.ids[i];
+                    if (shared[id] > 0) {
+                        shared[id]++;
+                    }
+                }
+            } else {
+                if (texts == null) {
+                    texts = new String[candidateCount];
+                    for (int c = 0; c < candidateCount; c++) {
+                        texts[c] = padded(keysById[candidates[c]]);
+                    }
+                }
+                String piece = trigramText(trigrams[order[s]]);
+                for (int c = 0; c < candidateCount; c++) {
+                    if (texts[c].contains(piece)) {
+                        shared[candidates[c]]++;
+                    }
+                }
+            }
+        }
+
+        // keeps the best matches, the worst of them at the head
+        PriorityQueue<Match> best = new PriorityQueue<>(Math.min(limit, candidateCount) + 1);
+        for (int c = 0; c < candidateCount; c++) {
+            int id = candidates[c];
+            if (shared[id] >= needed) {
+                best.add(new Match(keysById[id], shared[id], trigramCounts[id]));
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+            shared[id] = 0;
+        }
+        List<String> found = new ArrayList<>(best.size());
+        while (!best.isEmpty()) {
+            found.add(best.poll().key);
+        }
+        Collections.reverse(found);
+        return found;
+    }
+
+    /**
+     * Gives every remaining key a new id and builds the trigram index again without the dead ids.
+     */
+    private void rebuild() {
+        List<String> remaining = new ArrayList<>(keys);
+        keys.clear();
+        ids.clear();
+        trigramSlots = new long[1024];
+        postingSlots = new Postings[1024];
+        distinctTrigrams = 0;
+        keysById = new String[Math.max(16, remaining.size())];
+        trigramCounts = new int[keysById.length];
+        nextId = 0;
+        deadIds = 0;
+        for (String key : remaining) {
+            add(key);
+        }
+    }
+
+    /**
+     * Finds the ids of the keys holding a trigram.
+     *
+     * @param trigram the packed trigram
+     * @param create  whether to add an empty list if the trigram is new
+     * @return the ids, or null if the trigram is new and create is false
+     */
+    private Postings postings(long trigram, boolean create) {
+        int mask = trigramSlots.length - 1;
+        int slot = slot(trigram) & mask;
+        while (postingSlots[slot] != null) {
+            if (trigramSlots[slot] == trigram) {
+                return postingSlots[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        if (!create) {
+            return null;
+        }
+        if ((distinctTrigrams + 1) * 2 > trigramSlots.length) {
+            growTrigramSlots();
+            return postings(trigram, true);
+        }
+        distinctTrigrams++;
+        trigramSlots[slot] = trigram;
+        return postingSlots[slot] = new Postings();
+    }
+
+    private static int slot(long trigram) {
+        return (int) (trigram * 0x9E3779B97F4A7C15L >>> 32);
+    }
+
+    /**
+     * Doubles the trigram table, placing every trigram again.
+     */
+    private void growTrigramSlots() {
+        long[] oldTrigrams = trigramSlots;
+        Postings[] oldPostings = postingSlots;
+        trigramSlots = new long[oldTrigrams.length * 2];
+        postingSlots = new Postings[oldPostings.length * 2];
+        int mask = trigramSlots.length - 1;
+        for (int i = 0; i < oldPostings.length; i++) {
+            if (oldPostings[i] != null) {
+                int slot = slot(oldTrigrams[i]) & mask;
+                while (postingSlots[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                trigramSlots[slot] = oldTrigrams[i];
+                postingSlots[slot] = oldPostings[i];
+            }
+        }
+    }
+
+    /**
+     * Cuts a normalized title into its distinct trigrams.
+     *
+     * @param key the normalized title
+     * @return the packed trigrams, sorted and without duplicates
+     */
+    static long[] trigrams(String key) {
+        String text = padded(key);
+        long[] trigrams = new long[Math.max(0, text.length() - 2)];
+        for (int i = 0; i < trigrams.length; i++) {
+            trigrams[i] = trigram(text.charAt(i), text.charAt(i + 1), text.charAt(i + 2));
+        }
+        Arrays.sort(trigrams);
+        int distinct = 0;
+        for (int i = 0; i < trigrams.length; i++) {
+            if (i == 0 || trigrams[i] != trigrams[i - 1]) {
+                trigrams[distinct++] = trigrams[i];
+            }
+        }
+        return Arrays.copyOf(trigrams, distinct);
+    }
+
+    private static String padded(String key) {
+        return "  " + key + " ";
+    }
+
+    private static long trigram(char first, char second, char third) {
+        return (long) first << 32 | (long) second << 16 | third;
+    }
+
+    private static String trigramText(long trigram) {
+        return new String(new char[] {(char) (trigram >>> 32), (char) (trigram >>> 16), (char) trigram});
+    }
+
+    /**
+     * A growable list of ids, appended in ascending order.
+     */
+    private static final class Postings {
+        private int[] ids = new int[4];
+        private int size;
+
+        private void add(int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+    }
+
+    /**
+     * A candidate key with the number of query trigrams it holds, ordered from the worst match to the best.
+     */
+    private record Match(String key, int shared, int trigrams) implements Comparable<Match> {
+        @Override
+        public int compareTo(Match other) {
+            if (shared != other.shared) {
+                return Integer.compare(shared, other.shared);
+            }
+            if (trigrams != other.trigrams) {
+                return Integer.compare(other.trigrams, trigrams);
+            }
+            return other.key.compareTo(key);
+        }
+    }
+}
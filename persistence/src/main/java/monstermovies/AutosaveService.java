@@ -0,0 +1,207 @@
+package monstermovies;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * AutosaveService saves a MovieCollection to a binary snapshot file in the background, so the changes of
+ * a long session are not lost when the collection has no journal, and a large catalog is written without
+ * holding up the thread changing it.
+ *
+ * <p>Once per save interval a virtual thread checks the version of the collection (see
+ * MovieCollection.getVersion). If it changed since the last save, the thread takes a snapshot of the
+ * collection and writes it, so any number of changes made within an interval cost one write. The
+ * collection is only read while taking the snapshot, which is cheap after the first one (see
+ * MovieSnapshot); writing the file runs against the snapshot while the collection keeps being changed.
+ * The snapshot is written to a temporary file next to the snapshot file, which then replaces the snapshot
+ * file in one atomic rename, so a crash leaves either the previous snapshot or the new one.
+ *
+ * <p>MovieCollection is not safe for use by several threads at once, so the service and the thread
+ * changing the collection share a lock: the owner of the collection holds it while changing the collection,
+ * and the service holds it while reading the version and taking a snapshot. A background save waits at most
+ * one interval for the lock, so a save cannot hang on an owner closing the service while holding the lock;
+ * a fair lock keeps a busy owner from taking the lock back before the waiting save gets it.
+ */
+public final class AutosaveService implements Closeable {
+
+    /**
+     * The default time between two saves, in milliseconds.
+     */
+    public static final long DEFAULT_INTERVAL_MILLIS = 30_000;
+
+    private final MovieCollection collection;
+    private final Lock lock;
+    private final Path snapshotPath;
+    private final Path temporaryPath;
+    private final long intervalMillis;
+    private final ScheduledExecutorService scheduler;
+
+    // the version of the collection held by the snapshot file
+    private volatile long savedVersion;
+    private volatile long saves;
+    private volatile long failures;
+    private volatile long lastSaveNanos;
+    private volatile long maxSaveNanos;
+
+    private AutosaveService(MovieCollection collection, Lock lock, String snapshotFile, long intervalMillis) {
+        this.collection = collection;
+        this.intervalMillis = intervalMillis;
+        this.lock = lock;
+        this.snapshotPath = Paths.get(snapshotFile);
+        this.temporaryPath = snapshotPath.resolveSibling(snapshotPath.getFileName() + ".autosave");
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofVirtual().name("movie-autosave").factory());
+    }
+
+    /**
+     * Starts saving a collection in the background. The collection is taken to be saved as it is now,
+     * so the first save happens after its first change.
+     *
+     * @param collection     the collection to save
+     * @param lock           the lock held by whoever changes the collection
+     * @param snapshotFile   the snapshot file to write
+     * @param intervalMillis the time between two saves, in milliseconds
+     * @return the running service
+     * @throws IllegalArgumentException if the interval is not positive
+     */
+    public static AutosaveService start(MovieCollection collection, Lock lock, String snapshotFile,
+                                        long intervalMillis) {
+        if (intervalMillis <= 0) {
+            throw new IllegalArgumentException("Autosave interval must be positive.");
+        }
+        AutosaveService service = new AutosaveService(collection, lock, snapshotFile, intervalMillis);
+        lock.lock();
+        try {
+            service.savedVersion = collection.getVersion();
+        } finally {
+            lock.unlock();
+        }
+        service.scheduler.scheduleWithFixedDelay(service::saveInBackground, intervalMillis, intervalMillis,
+                TimeUnit.MILLISECONDS);
+        return service;
+    }
+
+    /**
+     * Gets the number of changes made to the collection that are not in the snapshot file yet, the depth
+     * of the queue of changes the next save coalesces into one write.
+     *
+     * @return the number of unsaved changes
+     */
+    public long getPendingChanges() {
+        lock.lock();
+        try {
+            return collection.getVersion() - savedVersion;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the number of snapshots written so far.
+     *
+     * @return the number of saves
+     */
+    public long getSaveCount() {
+        return saves;
+    }
+
+    /**
+     * Gets the number of saves that failed so far. A failed save is retried at the next interval.
+     *
+     * @return the number of failed saves
+     */
+    public long getFailureCount() {
+        return failures;
+    }
+
+    /**
+     * Gets how long the last save took, from taking the snapshot until the snapshot file was replaced.
+     *
+     * @return the latency of the last save in milliseconds, or 0 if nothing has been saved yet
+     */
+    public double getLastSaveMillis() {
+        return lastSaveNanos / 1e6;
+    }
+
+    /**
+     * Gets how long the slowest save took so far.
+     *
+     * @return the latency of the slowest save in milliseconds, or 0 if nothing has been saved yet
+     */
+    public double getMaxSaveMillis() {
+        return maxSaveNanos / 1e6;
+    }
+
+    /**
+     * Stops saving in the background, waiting for a running save to finish, and saves the last changes.
+     *
+     * @throws IOException if the last changes could not be saved
+     */
+    @Override
+    public void close() throws IOException {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            save(true);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Saves the collection from the scheduler, reporting a failure instead of throwing it, which would stop
+     * the scheduled saves.
+     */
+    private void saveInBackground() {
+        try {
+            save(false);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | RuntimeException e) {
+            failures++;
+            System.err.println("Error autosaving movie collection, retrying in the next interval");
+        }
+    }
+
+    /**
+     * Writes a snapshot of the collection to the snapshot file if the collection has changed since the last save.
+     *
+     * @param wait whether to wait for the collection lock, or else to skip the save if the lock stays busy
+     *             for a whole interval
+     * @throws IOException if the snapshot could not be written
+     * @throws InterruptedException if the thread is interrupted while waiting for the lock
+     */
+    private void save(boolean wait) throws IOException, InterruptedException {
+        if (wait) {
+            lock.lock();
+        } else if (!lock.tryLock(intervalMillis, TimeUnit.MILLISECONDS)) {
+            return;
+        }
+        MovieSnapshot snapshot;
+        long start;
+        try {
+            if (collection.getVersion() == savedVersion) {
+                return;
+            }
+            start = System.nanoTime();
+            snapshot = collection.snapshot();
+        } finally {
+            lock.unlock();
+        }
+        MovieFiles.saveSnapshot(snapshot, temporaryPath.toString());
+        Files.move(temporaryPath, snapshotPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        long elapsed = System.nanoTime() - start;
+        savedVersion = snapshot.getVersion();
+        lastSaveNanos = elapsed;
+        maxSaveNanos = Math.max(maxSaveNanos, elapsed);
+        saves++;
+    }
+}
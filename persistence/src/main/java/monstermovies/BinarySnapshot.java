@@ -0,0 +1,418 @@
+package monstermovies;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * BinarySnapshot saves and loads a movie collection in a compact, versioned binary format.
+ * Unlike the text SavedMovie format, every movie is written once, the titles, subtypes and
+ * vulnerabilities are stored in string dictionaries and referenced by index, and the numbers
+ * are varint-encoded, so nothing has to be split or parsed with Integer.parseInt when loading.
+ *
+ * <p>Layout of version 4:
+ * <pre>
+ * magic "MVSN" | version (1 byte) | movie count (int) | character count (int) | index offset (long)
+ * titles dictionary | subtypes dictionary | vulnerabilities dictionary
+ * per movie:     title index | year (zigzag) | character count
+ * per character: name | age | subtype index | rebirth | vulnerability index
+ * index:         subtypes offset (long) | vulnerabilities offset (long) | title count (int)
+ *                | per title: offset (long) | per movie: offset (long), year (int), title index (int)
+ *                | movies by title: movie number (int) per movie | movies by year: movie number (int) per movie
+ *                | characters by name: per character: name offset (long), movie number (int)
+ * </pre>
+ * A dictionary is a varint count followed by its strings, and a string is a varint byte length
+ * followed by its UTF-8 bytes. Unless noted otherwise every number is an unsigned varint.
+ * The fixed-width index at the end lets MappedMovieCatalog find any movie or title without
+ * decoding the file. Its last three tables list the movies ordered by normalized title (see
+ * MovieCollection.titleKey) and by release year, and the characters ordered by normalized name,
+ * each in collection order among equal keys, so the catalog looks movies up by binary search.
+ * Version 1 files, which have no index, version 2 files, which lack the last three tables, and version 3
+ * files, whose tables are ordered by the lower-cased title and name instead, can still be loaded.
+ */
+public final class BinarySnapshot {
+
+    /**
+     * The magic bytes every snapshot file starts with.
+     */
+    static final int MAGIC = ('M' << 24) | ('V' << 16) | ('S' << 8) | 'N';
+
+    /**
+     * The version of the format written by this class.
+     */
+    static final byte VERSION = 4;
+
+    /**
+     * The position of the index offset in the header.
+     */
+    static final int INDEX_OFFSET_POSITION = 13;
+
+    /**
+     * The size in bytes of one movie entry of the index.
+     */
+    static final int MOVIE_ENTRY_SIZE = 16;
+
+    /**
+     * The size of the buffer used to read and write the file.
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private BinarySnapshot() {
+    }
+
+    /**
+     * Writes the given movies and their characters to a snapshot file, replacing the file if it exists.
+     *
+     * @param movies   the movies to save, in the order they should be loaded again
+     * @param fileName the name of the file to write
+     * @throws IOException if an I/O error occurs
+     */
+    public static void write(Collection<MonsterMovie> movies, String fileName) throws IOException {
+        Map<String, Integer> titles = new LinkedHashMap<>();
+        Map<String, Integer> subtypes = new LinkedHashMap<>();
+        Map<String, Integer> vulnerabilities = new LinkedHashMap<>();
+        int characterCount = 0;
+        for (MonsterMovie movie : movies) {
+            titles.putIfAbsent(movie.getTitle(), titles.size());
+            for (HorrorCharacter character : movie.getHorrorCharacters()) {
+                subtypes.putIfAbsent(character.getSubtype(), subtypes.size());
+                vulnerabilities.putIfAbsent(character.getVulnerability(), vulnerabilities.size());
+                characterCount++;
+            }
+        }
+
+        try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            Output out = new Output(channel);
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeInt(movies.size());
+            out.writeInt(characterCount);
+            out.writeLong(0); // index offset, filled in once the index has been written
+            long[] titleOffsets = out.writeDictionary(titles.keySet());
+            long subtypesOffset = out.position();
+            out.writeDictionary(subtypes.keySet());
+            long vulnerabilitiesOffset = out.position();
+            out.writeDictionary(vulnerabilities.keySet());
+
+            long[] movieOffsets = new long[movies.size()];
+            long[] nameOffsets = new long[characterCount];
+            int[] characterMovies = new int[characterCount];
+            String[] nameKeys = new String[characterCount];
+            int m = 0;
+            int c = 0;
+            for (MonsterMovie movie : movies) {
+                List<HorrorCharacter> characters = movie.getHorrorCharacters();
+                movieOffsets[m] = out.position();
+                out.writeVarint(titles.get(movie.getTitle()));
+                out.writeVarint(zigzag(movie.getYearReleased()));
+                out.writeVarint(characters.size());
+                for (HorrorCharacter character : characters) {
+                    nameOffsets[c] = out.position();
+                    characterMovies[c] = m;
+                    nameKeys[c++] = MovieCollection.titleKey(character.getName());
+                    out.writeString(character.getName());
+                    out.writeVarint(character.getAge());
+                    out.writeVarint(subtypes.get(character.getSubtype()));
+                    out.writeVarint(character.getRebirth());
+                    out.writeVarint(vulnerabilities.get(character.getVulnerability()));
+                }
+                m++;
+            }
+
+            long indexOffset = out.position();
+            out.writeLong(subtypesOffset);
+            out.writeLong(vulnerabilitiesOffset);
+            out.writeInt(titleOffsets.length);
+            for (long titleOffset : titleOffsets) {
+                out.writeLong(titleOffset);
+            }
+            String[] titleKeys = new String[movies.size()];
+            Integer[] years = new Integer[movies.size()];
+            m = 0;
+            for (MonsterMovie movie : movies) {
+                titleKeys[m] = MovieCollection.titleKey(movie.getTitle());
+                years[m] = movie.getYearReleased();
+                out.writeLong(movieOffsets[m++]);
+                out.writeInt(movie.getYearReleased());
+                out.writeInt(titles.get(movie.getTitle()));
+            }
+            for (int movie : orderBy(titleKeys)) {
+                out.writeInt(movie);
+            }
+            for (int movie : orderBy(years)) {
+                out.writeInt(movie);
+            }
+            for (int character : orderBy(nameKeys)) {
+                out.writeLong(nameOffsets[character]);
+                out.writeInt(characterMovies[character]);
+            }
+            out.flush();
+            channel.write(ByteBuffer.allocate(Long.BYTES).putLong(0, indexOffset), INDEX_OFFSET_POSITION);
+            channel.force(true); // the journal deletes the changes folded into a snapshot once it is renamed
+        }
+    }
+
+    /**
+     * Orders the numbers from 0 to keys.length - 1 by their keys, keeping numbers with equal keys in ascending
+     * order. Keys repeat a lot, such as character names and release years, so only the distinct keys are sorted
+     * and the numbers are then placed by a counting sort.
+     *
+     * @param keys the key of every number
+     * @return the numbers in order
+     */
+    private static <K extends Comparable<K>> int[] orderBy(K[] keys) {
+        Map<K, Integer> ids = new HashMap<>();
+        int[] keyIds = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            Integer id = ids.putIfAbsent(keys[i], ids.size());
+            keyIds[i] = id == null ? ids.size() - 1 : id;
+        }
+        List<K> distinct = new ArrayList<>(ids.keySet());
+        Collections.sort(distinct);
+        int[] ranks = new int[distinct.size()];
+        for (int rank = 0; rank < ranks.length; rank++) {
+            ranks[ids.get(distinct.get(rank))] = rank;
+        }
+        int[] starts = new int[ranks.length + 1];
+        for (int keyId : keyIds) {
+            starts[ranks[keyId] + 1]++;
+        }
+        for (int rank = 0; rank < ranks.length; rank++) {
+            starts[rank + 1] += starts[rank];
+        }
+        int[] order = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            order[starts[ranks[keyIds[i]]]++] = i;
+        }
+        return order;
+    }
+
+    /**
+     * Loads a snapshot file into a new movie collection, sized from the counts in the file header.
+     *
+     * @param fileName the name of the file to read
+     * @return a collection holding the movies of the snapshot, in the order they were saved
+     * @throws IOException if an I/O error occurs or the file is not a valid snapshot
+     */
+    public static MovieCollection read(String fileName) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+            Input in = new Input(channel);
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a movie snapshot file: " + fileName);
+            }
+            byte version = in.readByte();
+            if (version < 1 || version > VERSION) {
+                throw new IOException("Unsupported movie snapshot version " + version + ": " + fileName);
+            }
+            int movieCount = in.readInt();
+            int characterCount = in.readInt();
+            if (version >= 2) {
+                in.readLong(); // index offset, only needed for random access
+            }
+            String[] titles = in.readDictionary();
+            String[] subtypes = in.readDictionary();
+            String[] vulnerabilities = in.readDictionary();
+
+            MovieCollection collection = new MovieCollection(movieCount);
+            int charactersRead = 0;
+            for (int m = 0; m < movieCount; m++) {
+                String title = titles[in.readVarint()];
+                int yearReleased = unzigzag(in.readVarint());
+                int size = in.readVarint();
+                MonsterMovie movie = new MonsterMovie(title, yearReleased, size);
+                for (int c = 0; c < size; c++) {
+                    String name = in.readString();
+                    int age = in.readVarint();
+                    String subtype = subtypes[in.readVarint()];
+                    int rebirth = in.readVarint();
+                    String vulnerability = vulnerabilities[in.readVarint()];
+                    movie.addCharacter(new HorrorCharacter(name, age, subtype, rebirth, vulnerability));
+                }
+                charactersRead += size;
+                collection.addMovie(movie);
+            }
+            if (charactersRead != characterCount) {
+                throw new IOException("Corrupt movie snapshot, expected " + characterCount +
+                        " characters but found " + charactersRead + ": " + fileName);
+            }
+            return collection;
+        } catch (ArrayIndexOutOfBoundsException | NegativeArraySizeException | IllegalArgumentException e) {
+            throw new IOException("Corrupt movie snapshot: " + fileName, e);
+        }
+    }
+
+    /**
+     * Maps a signed int to an unsigned one so small negative numbers stay short as varints.
+     */
+    static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    /**
+     * Reverses {@link #zigzag(int)}.
+     */
+    static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Buffers writes to a file channel.
+     */
+    private static final class Output {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        private long flushed;
+
+        Output(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        long position() {
+            return flushed + buffer.position();
+        }
+
+        void writeByte(byte value) throws IOException {
+            ensure(1);
+            buffer.put(value);
+        }
+
+        void writeInt(int value) throws IOException {
+            ensure(4);
+            buffer.putInt(value);
+        }
+
+        void writeLong(long value) throws IOException {
+            ensure(8);
+            buffer.putLong(value);
+        }
+
+        void writeVarint(int value) throws IOException {
+            ensure(5);
+            while ((value & ~0x7F) != 0) {
+                buffer.put((byte) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            buffer.put((byte) value);
+        }
+
+        void writeString(String value) throws IOException {
+            // a movie may be given a null title, which is saved like an empty one
+            byte[] bytes = value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(bytes.length);
+            if (bytes.length > buffer.capacity()) {
+                flush();
+                ByteBuffer large = ByteBuffer.wrap(bytes);
+                while (large.hasRemaining()) {
+                    flushed += channel.write(large);
+                }
+            } else {
+                ensure(bytes.length);
+                buffer.put(bytes);
+            }
+        }
+
+        long[] writeDictionary(Collection<String> values) throws IOException {
+            long[] offsets = new long[values.size()];
+            writeVarint(values.size());
+            int i = 0;
+            for (String value : values) {
+                offsets[i++] = position();
+                writeString(value);
+            }
+            return offsets;
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                flushed += channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+    }
+
+    /**
+     * Buffers reads from a file channel.
+     */
+    private static final class Input {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+        Input(FileChannel channel) {
+            this.channel = channel;
+            buffer.flip();
+        }
+
+        byte readByte() throws IOException {
+            ensure(1);
+            return buffer.get();
+        }
+
+        int readInt() throws IOException {
+            ensure(4);
+            return buffer.getInt();
+        }
+
+        long readLong() throws IOException {
+            ensure(8);
+            return buffer.getLong();
+        }
+
+        int readVarint() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                byte b = readByte();
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Corrupt movie snapshot, varint is too long");
+        }
+
+        String readString() throws IOException {
+            int length = readVarint();
+            byte[] bytes = new byte[length];
+            int read = 0;
+            while (read < length) {
+                ensure(1);
+                int chunk = Math.min(buffer.remaining(), length - read);
+                buffer.get(bytes, read, chunk);
+                read += chunk;
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        String[] readDictionary() throws IOException {
+            String[] values = new String[readVarint()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = readString();
+            }
+            return values;
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() >= bytes) {
+                return;
+            }
+            buffer.compact();
+            while (buffer.position() < bytes) {
+                if (channel.read(buffer) < 0) {
+                    throw new EOFException("Unexpected end of movie snapshot");
+                }
+            }
+            buffer.flip();
+        }
+    }
+}
@@ -0,0 +1,420 @@
+package monstermovies;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.IntUnaryOperator;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * MappedMovieCatalog is a read-only MovieCatalog served straight from a memory-mapped snapshot
+ * file written by BinarySnapshot.
+ * Opening the catalog only reads the file header, and queries walk the fixed-width index at the
+ * end of the file, so startup time and heap usage do not grow with the size of the catalog.
+ * Lookups by title, release year and character name binary search the sorted tables of the index,
+ * so they only read the entries they compare and the movies they return.
+ * MonsterMovie and HorrorCharacter objects are only decoded for the movies a query actually
+ * returns, and are not cached.
+ * The file is mapped in segments of SEGMENT_SIZE bytes, so it can be larger than one mapped buffer.
+ * All reads use absolute positions on the mapped buffers, so one catalog can be queried from
+ * several threads at once.
+ */
+public class MappedMovieCatalog implements MovieCatalog {
+
+    /**
+     * The size of a mapped segment of the file is 2 to the power of this number.
+     */
+    private static final int SEGMENT_SHIFT = 30;
+
+    /**
+     * The size in bytes of a mapped segment of the file.
+     */
+    private static final long SEGMENT_SIZE = 1L << SEGMENT_SHIFT;
+
+    /**
+     * The size in bytes of one entry of the characters by name table.
+     */
+    private static final int CHARACTER_ENTRY_SIZE = Long.BYTES + Integer.BYTES;
+
+    /**
+     * The mapped snapshot file, segment i starting at i * SEGMENT_SIZE. Every segment but the last maps
+     * Long.BYTES more than SEGMENT_SIZE, so a number of the index never has to be read across two segments.
+     */
+    private final MappedByteBuffer[] segments;
+
+    /**
+     * The number of movies in the catalog.
+     */
+    private final int movieCount;
+
+    /**
+     * The number of characters in the catalog.
+     */
+    private final int characterCount;
+
+    /**
+     * The position of the subtypes dictionary.
+     */
+    private final long subtypesPosition;
+
+    /**
+     * The position of the vulnerabilities dictionary.
+     */
+    private final long vulnerabilitiesPosition;
+
+    /**
+     * The position of the table holding the offset of every title.
+     */
+    private final long titleOffsetsPosition;
+
+    /**
+     * The position of the table holding one entry per movie.
+     */
+    private final long movieEntriesPosition;
+
+    /**
+     * The position of the table of movie numbers ordered by normalized title.
+     */
+    private final long moviesByTitlePosition;
+
+    /**
+     * The position of the table of movie numbers ordered by release year.
+     */
+    private final long moviesByYearPosition;
+
+    /**
+     * The position of the table of characters ordered by normalized name.
+     */
+    private final long charactersByNamePosition;
+
+    /**
+     * The subtypes dictionary, decoded the first time a character is decoded.
+     */
+    private volatile String[] subtypes;
+
+    /**
+     * The vulnerabilities dictionary, decoded the first time a character is decoded.
+     */
+    private volatile String[] vulnerabilities;
+
+    private MappedMovieCatalog(MappedByteBuffer[] segments, long size, String fileName) throws IOException {
+        this.segments = segments;
+        if (size < BinarySnapshot.INDEX_OFFSET_POSITION + Long.BYTES || getInt(0) != BinarySnapshot.MAGIC) {
+            throw new IOException("Not a movie snapshot file: " + fileName);
+        }
+        byte version = get(4);
+        if (version != BinarySnapshot.VERSION) {
+            throw new IOException("Movie snapshot version " + version +
+                    " has no lookup tables in the current order and cannot be mapped, save it again: " + fileName);
+        }
+        this.movieCount = getInt(5);
+        this.characterCount = getInt(9);
+        long indexPosition = getLong(BinarySnapshot.INDEX_OFFSET_POSITION);
+        if (indexPosition < 0 || indexPosition > size - 2 * Long.BYTES - Integer.BYTES) {
+            throw new IOException("Corrupt movie snapshot, the index is truncated: " + fileName);
+        }
+        this.subtypesPosition = getLong(indexPosition);
+        this.vulnerabilitiesPosition = getLong(indexPosition + Long.BYTES);
+        int titleCount = getInt(indexPosition + 2 * Long.BYTES);
+        this.titleOffsetsPosition = indexPosition + 2 * Long.BYTES + Integer.BYTES;
+        this.movieEntriesPosition = titleOffsetsPosition + (long) titleCount * Long.BYTES;
+        this.moviesByTitlePosition = movieEntriesPosition + (long) movieCount * BinarySnapshot.MOVIE_ENTRY_SIZE;
+        this.moviesByYearPosition = moviesByTitlePosition + (long) movieCount * Integer.BYTES;
+        this.charactersByNamePosition = moviesByYearPosition + (long) movieCount * Integer.BYTES;
+        if (charactersByNamePosition + (long) characterCount * CHARACTER_ENTRY_SIZE > size) {
+            throw new IOException("Corrupt movie snapshot, the index is truncated: " + fileName);
+        }
+    }
+
+    /**
+     * Opens a snapshot file as a read-only catalog.
+     *
+     * @param fileName the name of the snapshot file, written by BinarySnapshot or MovieFiles.saveSnapshot
+     * @return the catalog backed by the mapped file
+     * @throws IOException if the file cannot be mapped or is not a snapshot with an index
+     */
+    public static MappedMovieCatalog open(String fileName) throws IOException {
+        // the mapping stays valid after the channel is closed
+        try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+            long size = channel.size();
+            MappedByteBuffer[] segments = new MappedByteBuffer[(int) ((size + SEGMENT_SIZE - 1) >>> SEGMENT_SHIFT)];
+            for (int i = 0; i < segments.length; i++) {
+                long start = (long) i << SEGMENT_SHIFT;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start,
+                        Math.min(SEGMENT_SIZE + Long.BYTES, size - start));
+            }
+            return new MappedMovieCatalog(segments, size, fileName);
+        }
+    }
+
+    /**
+     * Gets the number of movies in the catalog.
+     *
+     * @return the number of movies
+     */
+    public int getMovieCount() {
+        return movieCount;
+    }
+
+    /**
+     * Performs an action for the title and release year of every movie, reading only the index.
+     *
+     * @param action the action to perform, given the title and the release year
+     */
+    @Override
+    public void forEachMovieTitle(ObjIntConsumer<String> action) {
+        for (int i = 0; i < movieCount; i++) {
+            action.accept(movieTitle(i), movieYear(i));
+        }
+    }
+
+    /**
+     * Performs an action for every movie, decoding one movie at a time.
+     *
+     * @param action the action to perform
+     */
+    @Override
+    public void forEachMovie(Consumer<MonsterMovie> action) {
+        for (int i = 0; i < movieCount; i++) {
+            action.accept(decodeMovie(i));
+        }
+    }
+
+    /**
+     * Finds the movies with the given title, ignoring case, by binary search of the movies ordered by title.
+     * Only the titles compared and the movies found are decoded.
+     *
+     * @param title the title to look up
+     * @return new MonsterMovie objects for the movies with the title in collection order, or an empty list if
+     * there are none
+     */
+    @Override
+    public List<MonsterMovie> findMoviesByTitle(String title) {
+        String key = MovieCollection.titleKey(title);
+        List<MonsterMovie> found = new ArrayList<>();
+        int i = firstEntry(movieCount,
+                entry -> MovieCollection.titleKey(movieTitle(movieByTitle(entry))).compareTo(key));
+        for (; i < movieCount && MovieCollection.titleKey(movieTitle(movieByTitle(i))).equals(key); i++) {
+            found.add(decodeMovie(movieByTitle(i)));
+        }
+        return found;
+    }
+
+    /**
+     * Finds the movies released between two years, both inclusive, by binary search of the movies
+     * ordered by release year. Only the matching movies are decoded.
+     *
+     * @param fromYear the first release year of the range
+     * @param toYear   the last release year of the range
+     * @return the movies released in the range ordered by release year, movies of the same year in collection
+     * order, or an empty list if there are none
+     */
+    @Override
+    public List<MonsterMovie> findMoviesByYearRange(int fromYear, int toYear) {
+        List<MonsterMovie> found = new ArrayList<>();
+        int i = firstEntry(movieCount, entry -> Integer.compare(movieYear(movieByYear(entry)), fromYear));
+        for (; i < movieCount && movieYear(movieByYear(i)) <= toYear; i++) {
+            found.add(decodeMovie(movieByYear(i)));
+        }
+        return found;
+    }
+
+    /**
+     * Finds the movies featuring a character with the given name, ignoring case, by binary search of the
+     * characters ordered by name. Only the names compared and the movies found are decoded.
+     *
+     * @param characterName the name of the character to look up
+     * @return the movies featuring the character in collection order, or an empty list if there are none
+     */
+    @Override
+    public List<MonsterMovie> findMoviesByCharacter(String characterName) {
+        String key = MovieCollection.titleKey(characterName);
+        List<MonsterMovie> found = new ArrayList<>();
+        int i = firstEntry(characterCount, entry -> MovieCollection.titleKey(characterName(entry)).compareTo(key));
+        int previous = -1;
+        for (; i < characterCount && MovieCollection.titleKey(characterName(i)).equals(key); i++) {
+            // the characters of one name are in collection order, so those of the same movie are next to each other
+            int movie = characterMovie(i);
+            if (movie != previous) {
+                found.add(decodeMovie(movie));
+                previous = movie;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Finds the first entry of a sorted table that is not smaller than the key looked up.
+     *
+     * @param count   the number of entries of the table
+     * @param compare compares the entry at a position to the key, negative if the entry is smaller
+     * @return the position of the first entry not smaller than the key, or count if there is none
+     */
+    private static int firstEntry(int count, IntUnaryOperator compare) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (compare.applyAsInt(middle) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Decodes a movie and its characters from the file.
+     *
+     * @param index the position of the movie in the catalog
+     * @return a new MonsterMovie holding the decoded movie, not attached to any collection
+     */
+    private MonsterMovie decodeMovie(int index) {
+        String[] subtypes = subtypes();
+        String[] vulnerabilities = vulnerabilities();
+        Cursor cursor = new Cursor(movieOffset(index));
+        String title = title(cursor.readVarint());
+        int yearReleased = BinarySnapshot.unzigzag(cursor.readVarint());
+        int size = cursor.readVarint();
+        MonsterMovie movie = new MonsterMovie(title, yearReleased, size);
+        for (int c = 0; c < size; c++) {
+            String name = cursor.readString();
+            int age = cursor.readVarint();
+            String subtype = subtypes[cursor.readVarint()];
+            int rebirth = cursor.readVarint();
+            String vulnerability = vulnerabilities[cursor.readVarint()];
+            movie.addCharacter(new HorrorCharacter(name, age, subtype, rebirth, vulnerability));
+        }
+        return movie;
+    }
+
+    private long movieOffset(int index) {
+        return getLong(movieEntriesPosition + (long) index * BinarySnapshot.MOVIE_ENTRY_SIZE);
+    }
+
+    private int movieYear(int index) {
+        return getInt(movieEntriesPosition + (long) index * BinarySnapshot.MOVIE_ENTRY_SIZE + Long.BYTES);
+    }
+
+    private String movieTitle(int index) {
+        return title(getInt(movieEntriesPosition + (long) index * BinarySnapshot.MOVIE_ENTRY_SIZE
+                + Long.BYTES + Integer.BYTES));
+    }
+
+    private String title(int titleIndex) {
+        return new Cursor(getLong(titleOffsetsPosition + (long) titleIndex * Long.BYTES)).readString();
+    }
+
+    private int movieByTitle(int entry) {
+        return getInt(moviesByTitlePosition + (long) entry * Integer.BYTES);
+    }
+
+    private int movieByYear(int entry) {
+        return getInt(moviesByYearPosition + (long) entry * Integer.BYTES);
+    }
+
+    private String characterName(int entry) {
+        return new Cursor(getLong(charactersByNamePosition + (long) entry * CHARACTER_ENTRY_SIZE)).readString();
+    }
+
+    private int characterMovie(int entry) {
+        return getInt(charactersByNamePosition + (long) entry * CHARACTER_ENTRY_SIZE + Long.BYTES);
+    }
+
+    private String[] subtypes() {
+        String[] decoded = subtypes;
+        if (decoded == null) {
+            decoded = new Cursor(subtypesPosition).readDictionary();
+            subtypes = decoded;
+        }
+        return decoded;
+    }
+
+    private String[] vulnerabilities() {
+        String[] decoded = vulnerabilities;
+        if (decoded == null) {
+            decoded = new Cursor(vulnerabilitiesPosition).readDictionary();
+            vulnerabilities = decoded;
+        }
+        return decoded;
+    }
+
+    private MappedByteBuffer segment(long position) {
+        return segments[(int) (position >>> SEGMENT_SHIFT)];
+    }
+
+    private static int segmentOffset(long position) {
+        return (int) (position & (SEGMENT_SIZE - 1));
+    }
+
+    private byte get(long position) {
+        return segment(position).get(segmentOffset(position));
+    }
+
+    private int getInt(long position) {
+        return segment(position).getInt(segmentOffset(position));
+    }
+
+    private long getLong(long position) {
+        return segment(position).getLong(segmentOffset(position));
+    }
+
+    /**
+     * Copies bytes of the file, which may span two or more segments.
+     */
+    private void get(long position, byte[] bytes) {
+        int copied = 0;
+        while (copied < bytes.length) {
+            int offset = segmentOffset(position + copied);
+            int length = (int) Math.min(bytes.length - copied, SEGMENT_SIZE - offset);
+            segment(position + copied).get(offset, bytes, copied, length);
+            copied += length;
+        }
+    }
+
+    /**
+     * Reads varints and strings from the mapped file starting at a given position.
+     */
+    private final class Cursor {
+        private long position;
+
+        Cursor(long position) {
+            this.position = position;
+        }
+
+        int readVarint() {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                byte b = get(position++);
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new IllegalStateException("Corrupt movie snapshot, varint is too long");
+        }
+
+        String readString() {
+            int length = readVarint();
+            byte[] bytes = new byte[length];
+            get(position, bytes);
+            position += length;
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        String[] readDictionary() {
+            String[] values = new String[readVarint()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = readString();
+            }
+            return values;
+        }
+    }
+}
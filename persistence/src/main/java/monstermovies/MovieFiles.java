@@ -0,0 +1,121 @@
+package monstermovies;
+
+import java.io.*;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * MovieFiles saves a MovieCollection to files and loads it back, in the text SavedMovie format or as a
+ * binary snapshot. It is the entry point of the persistence module, so the collection engine itself does
+ * not depend on any file format.
+ */
+public final class MovieFiles {
+
+    private MovieFiles() {
+    }
+
+    /**
+     * Saves a movie collection to a file.
+     * Each movie and its characters are saved in a specific format.
+     * @param collection the collection to save
+     * @param fileName the name of the file to save the collection to
+     * @throws IOException if an I/O error occurs
+     */
+    public static void saveMovie(MovieCollection collection, String fileName) throws IOException {
+        writeSavedMovie(collection.getMovies(), fileName);
+    }
+
+    /**
+     * Saves a snapshot of a movie collection to a file in the same format as saveMovie.
+     * The snapshot does not change, so this can run on another thread while the collection is being changed.
+     * @param snapshot the snapshot to save, see MovieCollection.snapshot
+     * @param fileName the name of the file to save the snapshot to
+     * @throws IOException if an I/O error occurs
+     */
+    public static void saveMovie(MovieSnapshot snapshot, String fileName) throws IOException {
+        writeSavedMovie(snapshot.getMovies(), fileName);
+    }
+
+    private static void writeSavedMovie(Collection<MonsterMovie> movies, String fileName) throws IOException {
+        try (BufferedWriter bufferedWriter = new BufferedWriter(new FileWriter(fileName))) {
+            bufferedWriter.write("Title || Year Released || Name || Age || Subtype || Rebirth || Vulnerability\n\n");
+            for (MonsterMovie movie : movies) {
+                for (HorrorCharacter character : movie.getHorrorCharacters()) {
+                    bufferedWriter.write(movie.getTitle() + " || " + movie.getYearReleased() + " || " +
+                            character.getName() + " || " + character.getAge() + " || " + character.getSubtype() +
+                            " || " + character.getRebirth() + " || " + character.getVulnerability());
+                    bufferedWriter.append("\n");
+                }
+                bufferedWriter.append("\n");
+            }
+        }
+    }
+
+    /**
+     * Saves a movie collection to a binary snapshot file, which is much smaller and faster to
+     * load than the text format written by saveMovie.
+     * @param collection the collection to save
+     * @param fileName the name of the file to save the collection to
+     * @throws IOException if an I/O error occurs
+     */
+    public static void saveSnapshot(MovieCollection collection, String fileName) throws IOException {
+        BinarySnapshot.write(collection.getMovies(), fileName);
+    }
+
+    /**
+     * Saves a snapshot of a movie collection to a binary snapshot file in the same format as saveSnapshot.
+     * The snapshot does not change, so this can run on another thread while the collection is being changed.
+     * @param snapshot the snapshot to save, see MovieCollection.snapshot
+     * @param fileName the name of the file to save the snapshot to
+     * @throws IOException if an I/O error occurs
+     */
+    public static void saveSnapshot(MovieSnapshot snapshot, String fileName) throws IOException {
+        BinarySnapshot.write(snapshot.getMovies(), fileName);
+    }
+
+    /**
+     * Loads a movie collection from a binary snapshot file written by saveSnapshot.
+     * @param fileName the name of the file to read from
+     * @return a new collection holding the movies of the snapshot
+     * @throws IOException if an I/O error occurs or the file is not a valid snapshot
+     */
+    public static MovieCollection readSnapshot(String fileName) throws IOException {
+        return BinarySnapshot.read(fileName);
+    }
+
+    /**
+     * Reads a movie collection from a file and populates the given collection.
+     * The file must have a specific format for parsing the data; rows are streamed by SavedMovieReader.
+     * @param collection the collection to add the movies and characters to
+     * @param fileName the name of the file to read from
+     * @throws IOException if an I/O error occurs
+     */
+    public static void readFromFile(MovieCollection collection, String fileName) throws IOException {
+        try (SavedMovieReader savedMovieReader = new SavedMovieReader(fileName)) {
+            MovieRecord record;
+            while ((record = savedMovieReader.read()) != null) {
+                MonsterMovie movie = collection.findOrCreateMovie(record.title(), record.yearReleased());
+                Objects.requireNonNull(movie).addCharacter(record.toCharacter());
+            }
+        } catch (IOException e) {
+            System.err.println("Error reading from file");
+        }
+    }
+
+    /**
+     * Reads a movie collection from a file like readFromFile, but splits the file into ranges that are
+     * parsed in parallel on the common fork-join pool, see ParallelMovieImporter.
+     * The collection ends up the same as after readFromFile.
+     * @param collection the collection to add the movies and characters to
+     * @param fileName the name of the file to read from
+     * @throws IOException if an I/O error occurs
+     */
+    public static void readFromFileParallel(MovieCollection collection, String fileName) throws IOException {
+        try {
+            ParallelMovieImporter.importFile(collection, fileName, ForkJoinPool.commonPool());
+        } catch (IOException e) {
+            System.err.println("Error reading from file");
+        }
+    }
+}
@@ -0,0 +1,808 @@
+package monstermovies;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * MovieJournal is a write-ahead journal for a MovieCollection.
+ * Once attached, every change to the collection is appended to the journal file as a compact
+ * record, so saving costs only the changes that were made and a crash loses at most the last
+ * commit interval instead of the whole session.
+ *
+ * <p>Records are collected in memory and a background thread writes and fsyncs them in groups,
+ * once per commit interval or when {@link #sync()} is called. When the journal grows past the
+ * compaction threshold it is rotated, and another background thread folds the rotated journal
+ * into a fresh snapshot of the last snapshot file, without touching the live collection.
+ * {@link #open(String, String)} recovers a collection by loading the snapshot and replaying the
+ * journal on top of it; a torn record at the end of the journal is discarded.
+ * {@link #create(MovieCollection, String, String)} replaces the snapshot and discards the journals the same
+ * recoverable way, so a crash never replays a journal onto a snapshot that already holds its changes.
+ *
+ * <p>A record is a varint payload length, the payload and a CRC32 of the payload. The payload is a
+ * record type followed by its fields, using the string and varint encoding of BinarySnapshot.
+ * Movies are identified by their title and their position among the movies with that title
+ * (see MovieCollection.findMovie), and characters by their attributes from before the change.
+ * The records of a batch change (see MovieCollection.addMovies) are nested in one batch record,
+ * so a crash either keeps the whole batch or none of it.
+ *
+ * <p>If writing the journal fails, the failure handler is told at once (see setFailureHandler), and
+ * the journal detaches itself from the collection at the next change instead of collecting records
+ * that can no longer be written. sync and close then throw the failure, and the collection has to be
+ * saved another way, such as a new journal from create.
+ */
+public class MovieJournal extends CollectionJournal implements Closeable {
+
+    /**
+     * The default time between two group commits, in milliseconds.
+     */
+    public static final long DEFAULT_COMMIT_INTERVAL_MILLIS = 50;
+
+    /**
+     * The default journal size, in bytes, from which the journal is folded into the snapshot.
+     */
+    public static final long DEFAULT_COMPACTION_THRESHOLD = 8L * 1024 * 1024;
+
+    private static final int MAGIC = ('M' << 24) | ('V' << 16) | ('J' << 8) | 'L';
+    private static final byte VERSION = 1;
+    private static final int HEADER_SIZE = 5;
+
+    private static final byte ADD_MOVIE = 1;
+    private static final byte ADD_CHARACTER = 2;
+    private static final byte REMOVE_CHARACTER = 3;
+    private static final byte UPDATE_CHARACTER = 4;
+    private static final byte UPDATE_MOVIE = 5;
+    private static final byte REMOVE_BY_TITLE = 6;
+    private static final byte REMOVE_BY_YEAR = 7;
+    private static final byte REMOVE_BY_CHARACTER = 8;
+    private static final byte BATCH = 9;
+    private static final byte REMOVE_MOVIE = 10;
+
+    private final MovieCollection collection;
+    private final Path snapshotPath;
+    private final Path journalPath;
+    private final long commitIntervalMillis;
+    private final long compactionThreshold;
+
+    /**
+     * Guards the pending records and the commit counters.
+     */
+    private final Object lock = new Object();
+
+    /**
+     * Serializes writes to, and rotation of, the journal file.
+     */
+    private final Object ioLock = new Object();
+
+    private RecordBuffer pending = new RecordBuffer();
+    private RecordBuffer writing = new RecordBuffer();
+    private final RecordBuffer record = new RecordBuffer();
+    // the records of the batch being built, each prefixed with its length, see beginBatch
+    private final RecordBuffer batch = new RecordBuffer();
+    private int batchDepth;
+    private int batchSize;
+    private long appended;
+    private long committed;
+    private IOException failure;
+    private volatile Consumer<? super IOException> failureHandler;
+    private boolean closed;
+
+    private FileChannel channel;
+    private final Thread committer;
+    private Thread compactor;
+
+    private MovieJournal(MovieCollection collection, String snapshotFile, String journalFile, FileChannel channel,
+                         long commitIntervalMillis, long compactionThreshold) {
+        this.collection = collection;
+        this.snapshotPath = Paths.get(snapshotFile);
+        this.journalPath = Paths.get(journalFile);
+        this.channel = channel;
+        this.commitIntervalMillis = commitIntervalMillis;
+        this.compactionThreshold = compactionThreshold;
+        this.committer = new Thread(this::runCommitter, "movie-journal-commit");
+        this.committer.setDaemon(true);
+    }
+
+    /**
+     * Recovers a collection from a snapshot and its journal and attaches a journal to it,
+     * using the default commit interval and compaction threshold.
+     *
+     * @param snapshotFile the snapshot file the journal is folded into; it need not exist yet
+     * @param journalFile  the journal file; it need not exist yet
+     * @return the journal, attached to the recovered collection
+     * @throws IOException if the snapshot or journal cannot be read, or the journal cannot be opened
+     */
+    public static MovieJournal open(String snapshotFile, String journalFile) throws IOException {
+        return open(snapshotFile, journalFile, DEFAULT_COMMIT_INTERVAL_MILLIS, DEFAULT_COMPACTION_THRESHOLD);
+    }
+
+    /**
+     * Recovers a collection from a snapshot and its journal and attaches a journal to it.
+     * If a previous compaction was interrupted it is completed or restarted.
+     *
+     * @param snapshotFile         the snapshot file the journal is folded into; it need not exist yet
+     * @param journalFile          the journal file; it need not exist yet
+     * @param commitIntervalMillis the time between two group commits, in milliseconds
+     * @param compactionThreshold  the journal size, in bytes, from which it is folded into the snapshot
+     * @return the journal, attached to the recovered collection
+     * @throws IOException if the snapshot or journal cannot be read, or the journal cannot be opened
+     */
+    public static MovieJournal open(String snapshotFile, String journalFile, long commitIntervalMillis,
+                                    long compactionThreshold) throws IOException {
+        Path snapshot = Paths.get(snapshotFile);
+        Path journal = Paths.get(journalFile);
+        Path compacting = sibling(journal, ".compacting");
+        Path folded = sibling(journal, ".folded");
+        Path temporary = sibling(snapshot, ".tmp");
+
+        // finish a create that got as far as writing the new snapshot, before looking at the compaction files
+        // it replaces
+        if (Files.exists(sibling(journal, ".replacing"))) {
+            finishReplacing(snapshot, journal);
+        }
+        // finish a compaction that got as far as writing the new snapshot
+        if (Files.exists(folded)) {
+            if (Files.exists(temporary)) {
+                Files.move(temporary, snapshot, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            }
+            Files.delete(folded);
+        }
+        Files.deleteIfExists(temporary);
+
+        MovieCollection collection = Files.exists(snapshot) ? BinarySnapshot.read(snapshotFile) : new MovieCollection();
+        if (Files.exists(compacting)) {
+            replay(compacting, collection);
+        }
+        long validLength = Files.exists(journal) ? replay(journal, collection) : 0;
+
+        FileChannel channel = FileChannel.open(journal, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.READ);
+        if (validLength < HEADER_SIZE) {
+            channel.truncate(0);
+            writeHeader(channel);
+        } else {
+            channel.truncate(validLength); // drop a torn record left by a crash
+            channel.position(validLength);
+        }
+        MovieJournal movieJournal = new MovieJournal(collection, snapshotFile, journalFile, channel,
+                commitIntervalMillis, compactionThreshold);
+        movieJournal.attach();
+        if (Files.exists(compacting)) {
+            movieJournal.startCompactor();
+        }
+        return movieJournal;
+    }
+
+    /**
+     * Saves a collection as the new snapshot, discards any existing journal and attaches a fresh journal
+     * to the collection. Used when the collection did not come from the snapshot, such as after importing
+     * a text file. A crash before the new snapshot is complete leaves the previous snapshot and journal in place,
+     * and a crash after it is completed by open.
+     *
+     * @param collection   the collection to journal
+     * @param snapshotFile the snapshot file to write
+     * @param journalFile  the journal file to start
+     * @return the journal, attached to the collection
+     * @throws IOException if the snapshot or journal cannot be written
+     */
+    public static MovieJournal create(MovieCollection collection, String snapshotFile, String journalFile)
+            throws IOException {
+        Path snapshot = Paths.get(snapshotFile);
+        Path journal = Paths.get(journalFile);
+        BinarySnapshot.write(collection.getMovies(), sibling(snapshot, ".tmp").toString());
+        Files.write(sibling(journal, ".replacing"), new byte[0]);
+        finishReplacing(snapshot, journal);
+        FileChannel channel = FileChannel.open(journal, StandardOpenOption.WRITE, StandardOpenOption.READ);
+        channel.position(channel.size());
+        MovieJournal movieJournal = new MovieJournal(collection, snapshotFile, journalFile, channel,
+                DEFAULT_COMMIT_INTERVAL_MILLIS, DEFAULT_COMPACTION_THRESHOLD);
+        movieJournal.attach();
+        return movieJournal;
+    }
+
+    /**
+     * Sets what to do when writing the journal fails, such as telling the user that the changes are no longer
+     * saved as they are made. The handler runs on the background thread writing the journal.
+     *
+     * @param handler the handler, given the failure, or null for none
+     */
+    public void setFailureHandler(Consumer<? super IOException> handler) {
+        this.failureHandler = handler;
+    }
+
+    /**
+     * Gets the collection this journal records.
+     *
+     * @return the journaled collection
+     */
+    public MovieCollection getCollection() {
+        return collection;
+    }
+
+    /**
+     * Blocks until every change recorded so far has been written and fsynced.
+     *
+     * @throws IOException if writing the journal failed
+     */
+    public void sync() throws IOException {
+        synchronized (lock) {
+            long target = appended;
+            lock.notifyAll();
+            while (committed < target && failure == null && !closed) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while syncing the journal");
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    /**
+     * Rotates the journal and folds it into the snapshot in the background, unless a compaction
+     * is already running.
+     *
+     * @throws IOException if the journal cannot be rotated
+     */
+    public void compact() throws IOException {
+        synchronized (ioLock) {
+            commit();
+            rotate();
+        }
+    }
+
+    /**
+     * Commits the remaining changes, detaches the journal from the collection and waits for a running
+     * compaction to finish.
+     *
+     * @throws IOException if writing the journal failed
+     */
+    @Override
+    public void close() throws IOException {
+        collection.setJournal(null);
+        try {
+            sync();
+        } finally {
+            synchronized (lock) {
+                closed = true;
+                lock.notifyAll();
+            }
+            try {
+                committer.join();
+                Thread running;
+                synchronized (ioLock) {
+                    running = compactor;
+                }
+                if (running != null) {
+                    running.join();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            synchronized (ioLock) {
+                channel.close();
+            }
+        }
+    }
+
+    @Override
+    void movieAdded(MonsterMovie movie) {
+        record.reset();
+        record.writeByte(ADD_MOVIE);
+        record.writeString(movie.getTitle());
+        record.writeVarint(BinarySnapshot.zigzag(movie.getYearReleased()));
+        record.writeVarint(movie.getHorrorCharacters().size());
+        for (HorrorCharacter character : movie.getHorrorCharacters()) {
+            record.writeCharacter(character);
+        }
+        append();
+    }
+
+    @Override
+    void characterAdded(String title, int ordinal, HorrorCharacter character) {
+        writeMovieRecord(ADD_CHARACTER, title, ordinal);
+        record.writeCharacter(character);
+        append();
+    }
+
+    @Override
+    void characterRemoved(String title, int ordinal, HorrorCharacter character) {
+        writeMovieRecord(REMOVE_CHARACTER, title, ordinal);
+        record.writeCharacter(character);
+        append();
+    }
+
+    @Override
+    void characterUpdated(String title, int ordinal, HorrorCharacter previous, HorrorCharacter character) {
+        writeMovieRecord(UPDATE_CHARACTER, title, ordinal);
+        record.writeCharacter(previous);
+        record.writeCharacter(character);
+        append();
+    }
+
+    @Override
+    void movieUpdated(String previousTitle, int ordinal, String title, int yearReleased) {
+        writeMovieRecord(UPDATE_MOVIE, previousTitle, ordinal);
+        record.writeString(title);
+        record.writeVarint(BinarySnapshot.zigzag(yearReleased));
+        append();
+    }
+
+    @Override
+    void moviesRemovedByTitle(String title) {
+        record.reset();
+        record.writeByte(REMOVE_BY_TITLE);
+        record.writeString(title);
+        append();
+    }
+
+    @Override
+    void moviesRemovedByYear(int year) {
+        record.reset();
+        record.writeByte(REMOVE_BY_YEAR);
+        record.writeVarint(BinarySnapshot.zigzag(year));
+        append();
+    }
+
+    @Override
+    void moviesRemovedByCharacter(String characterName) {
+        record.reset();
+        record.writeByte(REMOVE_BY_CHARACTER);
+        record.writeString(characterName);
+        append();
+    }
+
+    @Override
+    void movieRemoved(String title, int ordinal) {
+        writeMovieRecord(REMOVE_MOVIE, title, ordinal);
+        append();
+    }
+
+    /**
+     * Starts collecting the following records into one batch record instead of appending them one by one.
+     * Batches may nest; the records are appended when the outermost batch ends.
+     */
+    @Override
+    void beginBatch() {
+        if (batchDepth++ == 0) {
+            batch.reset();
+            batchSize = 0;
+        }
+    }
+
+    /**
+     * Ends a batch started by beginBatch, appending its records as one batch record once the outermost batch ends.
+     */
+    @Override
+    void endBatch() {
+        if (--batchDepth > 0 || batchSize == 0) {
+            return;
+        }
+        record.reset();
+        record.writeByte(BATCH);
+        record.writeVarint(batchSize);
+        record.write(batch.bytes, 0, batch.length);
+        append();
+    }
+
+    private void writeMovieRecord(byte type, String title, int ordinal) {
+        record.reset();
+        record.writeByte(type);
+        record.writeString(title);
+        record.writeVarint(ordinal);
+    }
+
+    /**
+     * Moves the record being built to the pending records, framed with its length and checksum.
+     */
+    private void append() {
+        if (batchDepth > 0) {
+            batch.writeVarint(record.length);
+            batch.write(record.bytes, 0, record.length);
+            batchSize++;
+            return;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(record.bytes, 0, record.length);
+        synchronized (lock) {
+            if (failure == null) {
+                int before = pending.length;
+                pending.writeVarint(record.length);
+                pending.write(record.bytes, 0, record.length);
+                pending.writeInt((int) crc.getValue());
+                appended += pending.length - before;
+                return;
+            }
+        }
+        // nothing reaches the journal file any more, so stop recording instead of piling up records in memory;
+        // this runs on the thread changing the collection, so it cannot race with the change
+        collection.setJournal(null);
+    }
+
+    private void attach() {
+        collection.setJournal(this);
+        committer.start();
+    }
+
+    private void runCommitter() {
+        while (true) {
+            synchronized (lock) {
+                if (closed && pending.length == 0) {
+                    return;
+                }
+                if (!closed) {
+                    try {
+                        lock.wait(commitIntervalMillis);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            }
+            try {
+                synchronized (ioLock) {
+                    commit();
+                    if (channel.size() >= compactionThreshold) {
+                        rotate();
+                    }
+                }
+            } catch (IOException e) {
+                synchronized (lock) {
+                    failure = e;
+                    pending.reset();
+                    lock.notifyAll();
+                }
+                Consumer<? super IOException> handler = failureHandler;
+                if (handler != null) {
+                    handler.accept(e);
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Writes and fsyncs the pending records as one group. Must be called holding ioLock.
+     */
+    private void commit() throws IOException {
+        RecordBuffer batch;
+        long upTo;
+        synchronized (lock) {
+            if (pending.length == 0) {
+                return;
+            }
+            batch = pending;
+            pending = writing;
+            writing = batch;
+            upTo = appended;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(batch.bytes, 0, batch.length);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        channel.force(false);
+        batch.reset();
+        synchronized (lock) {
+            committed = upTo;
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Moves the journal aside for compaction and starts a fresh one, unless a compaction is still running.
+     * Must be called holding ioLock, right after a commit.
+     */
+    private void rotate() throws IOException {
+        Path compacting = sibling(journalPath, ".compacting");
+        if (compactor != null || Files.exists(compacting) || channel.size() <= HEADER_SIZE) {
+            return;
+        }
+        channel.close();
+        Files.move(journalPath, compacting, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(journalPath, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE,
+                StandardOpenOption.READ);
+        writeHeader(channel);
+        startCompactor();
+    }
+
+    private void startCompactor() {
+        Thread thread = new Thread(this::runCompactor, "movie-journal-compaction");
+        thread.setDaemon(true);
+        compactor = thread;
+        thread.start();
+    }
+
+    /**
+     * Folds the rotated journal into a new snapshot. Every step leaves files that open can recover from:
+     * the rotated journal is only renamed to ".folded" once the new snapshot is complete, and only
+     * deleted once the new snapshot has replaced the old one.
+     */
+    private void runCompactor() {
+        Path compacting = sibling(journalPath, ".compacting");
+        Path folded = sibling(journalPath, ".folded");
+        Path temporary = sibling(snapshotPath, ".tmp");
+        try {
+            MovieCollection base = Files.exists(snapshotPath)
+                    ? BinarySnapshot.read(snapshotPath.toString()) : new MovieCollection();
+            replay(compacting, base);
+            BinarySnapshot.write(base.getMovies(), temporary.toString());
+            Files.move(compacting, folded, StandardCopyOption.ATOMIC_MOVE);
+            Files.move(temporary, snapshotPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            Files.delete(folded);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error compacting the movie journal, it will be retried on the next start");
+        } finally {
+            synchronized (ioLock) {
+                compactor = null;
+            }
+        }
+    }
+
+    /**
+     * Replaces the snapshot with the one create wrote to the temporary file and discards the journals, once the
+     * ".replacing" marker says that snapshot is complete. Every step leaves files that open can recover from:
+     * the journals are only discarded once the new snapshot has replaced the old one, and the marker is only
+     * deleted once they are gone.
+     */
+    private static void finishReplacing(Path snapshot, Path journal) throws IOException {
+        Path temporary = sibling(snapshot, ".tmp");
+        if (Files.exists(temporary)) {
+            Files.move(temporary, snapshot, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        }
+        Files.deleteIfExists(sibling(journal, ".compacting"));
+        Files.deleteIfExists(sibling(journal, ".folded"));
+        try (FileChannel channel = FileChannel.open(journal, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeHeader(channel);
+        }
+        Files.delete(sibling(journal, ".replacing"));
+    }
+
+    /**
+     * Replays a journal file on top of a collection.
+     *
+     * @return the length of the valid part of the file, which ends before a torn or corrupt record
+     */
+    private static long replay(Path file, MovieCollection collection) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (Files.size(file) < HEADER_SIZE) {
+                return 0;
+            }
+            if (in.readInt() != MAGIC || in.readByte() != VERSION) {
+                throw new IOException("Not a movie journal file: " + file);
+            }
+            long valid = HEADER_SIZE;
+            CRC32 crc = new CRC32();
+            while (true) {
+                byte[] payload;
+                int checksum;
+                int lengthSize;
+                try {
+                    int first = in.read();
+                    if (first < 0) {
+                        return valid;
+                    }
+                    int length = first & 0x7F;
+                    lengthSize = 1;
+                    for (int shift = 7, b = first; b >= 0x80; shift += 7) {
+                        if (shift > 28) {
+                            return valid;
+                        }
+                        b = in.readUnsignedByte();
+                        length |= (b & 0x7F) << shift;
+                        lengthSize++;
+                    }
+                    payload = new byte[length];
+                    in.readFully(payload);
+                    checksum = in.readInt();
+                } catch (EOFException e) {
+                    return valid; // torn record at the end of the journal
+                }
+                crc.reset();
+                crc.update(payload);
+                if ((int) crc.getValue() != checksum) {
+                    return valid;
+                }
+                apply(new RecordReader(payload), collection, file);
+                valid += lengthSize + payload.length + Integer.BYTES;
+            }
+        }
+    }
+
+    private static void apply(RecordReader in, MovieCollection collection, Path file) throws IOException {
+        byte type = in.readByte();
+        switch (type) {
+            case ADD_MOVIE -> {
+                String title = in.readString();
+                int yearReleased = BinarySnapshot.unzigzag(in.readVarint());
+                int size = in.readVarint();
+                MonsterMovie movie = new MonsterMovie(title, yearReleased, size);
+                for (int c = 0; c < size; c++) {
+                    movie.addCharacter(in.readCharacter());
+                }
+                collection.addMovie(movie);
+            }
+            case ADD_CHARACTER -> findMovie(in, collection, file).addCharacter(in.readCharacter());
+            case REMOVE_CHARACTER -> {
+                MonsterMovie movie = findMovie(in, collection, file);
+                movie.removeCharacter(findCharacter(movie, in.readCharacter(), file));
+            }
+            case UPDATE_CHARACTER -> {
+                MonsterMovie movie = findMovie(in, collection, file);
+                HorrorCharacter character = findCharacter(movie, in.readCharacter(), file);
+                HorrorCharacter updated = in.readCharacter();
+                character.setName(updated.getName());
+                character.setAge(updated.getAge());
+                character.setSubtype(updated.getSubtype());
+                character.setRebirth(updated.getRebirth());
+                character.setVulnerability(updated.getVulnerability());
+            }
+            case UPDATE_MOVIE -> {
+                MonsterMovie movie = findMovie(in, collection, file);
+                movie.setTitle(in.readString());
+                movie.setYearReleased(BinarySnapshot.unzigzag(in.readVarint()));
+            }
+            case REMOVE_BY_TITLE -> collection.removeAllWithTitle(in.readString());
+            case REMOVE_BY_YEAR -> collection.removeAllFromYear(BinarySnapshot.unzigzag(in.readVarint()));
+            case REMOVE_BY_CHARACTER -> collection.removeAllWithCharacter(in.readString());
+            case BATCH -> {
+                int size = in.readVarint();
+                for (int r = 0; r < size; r++) {
+                    apply(new RecordReader(in.readBytes()), collection, file);
+                }
+            }
+            case REMOVE_MOVIE -> collection.removeMovie(findMovie(in, collection, file));
+            default -> throw new IOException("Unknown movie journal record type " + type + ": " + file);
+        }
+    }
+
+    private static MonsterMovie findMovie(RecordReader in, MovieCollection collection, Path file) throws IOException {
+        String title = in.readString();
+        MonsterMovie movie = collection.findMovie(title, in.readVarint());
+        if (movie == null) {
+            throw new IOException("Movie journal does not match the snapshot, movie \"" + title + "\" not found: " + file);
+        }
+        return movie;
+    }
+
+    private static HorrorCharacter findCharacter(MonsterMovie movie, HorrorCharacter wanted, Path file)
+            throws IOException {
+        for (HorrorCharacter character : movie.getHorrorCharacters()) {
+            if (character.sameAttributes(wanted)) {
+                return character;
+            }
+        }
+        throw new IOException("Movie journal does not match the snapshot, character \"" + wanted.getName() +
+                "\" not found in \"" + movie.getTitle() + "\": " + file);
+    }
+
+    private static void writeHeader(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).put(VERSION).flip();
+        while (header.hasRemaining()) {
+            channel.write(header);
+        }
+        channel.force(false);
+    }
+
+    private static Path sibling(Path path, String suffix) {
+        return path.resolveSibling(path.getFileName() + suffix);
+    }
+
+    /**
+     * A growable byte array records are encoded into.
+     */
+    private static final class RecordBuffer {
+        private byte[] bytes = new byte[256];
+        private int length;
+
+        void reset() {
+            length = 0;
+        }
+
+        void writeByte(int value) {
+            ensure(1);
+            bytes[length++] = (byte) value;
+        }
+
+        void writeInt(int value) {
+            ensure(4);
+            bytes[length++] = (byte) (value >>> 24);
+            bytes[length++] = (byte) (value >>> 16);
+            bytes[length++] = (byte) (value >>> 8);
+            bytes[length++] = (byte) value;
+        }
+
+        void writeVarint(int value) {
+            ensure(5);
+            while ((value & ~0x7F) != 0) {
+                bytes[length++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[length++] = (byte) value;
+        }
+
+        void writeString(String value) {
+            // a movie may be given a null title, which is journaled like an empty one
+            byte[] encoded = value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(encoded.length);
+            write(encoded, 0, encoded.length);
+        }
+
+        void writeCharacter(HorrorCharacter character) {
+            writeString(character.getName());
+            writeVarint(character.getAge());
+            writeString(character.getSubtype());
+            writeVarint(character.getRebirth());
+            writeString(character.getVulnerability());
+        }
+
+        void write(byte[] source, int offset, int count) {
+            ensure(count);
+            System.arraycopy(source, offset, bytes, length, count);
+            length += count;
+        }
+
+        private void ensure(int count) {
+            if (length + count > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + count));
+            }
+        }
+    }
+
+    /**
+     * Decodes the fields of one record payload.
+     */
+    private static final class RecordReader {
+        private final byte[] bytes;
+        private int position;
+
+        RecordReader(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        byte readByte() throws IOException {
+            if (position >= bytes.length) {
+                throw new IOException("Corrupt movie journal record");
+            }
+            return bytes[position++];
+        }
+
+        int readVarint() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                byte b = readByte();
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Corrupt movie journal record, varint is too long");
+        }
+
+        String readString() throws IOException {
+            return new String(readBytes(), StandardCharsets.UTF_8);
+        }
+
+        byte[] readBytes() throws IOException {
+            int length = readVarint();
+            if (length < 0 || position + length > bytes.length) {
+                throw new IOException("Corrupt movie journal record");
+            }
+            byte[] value = Arrays.copyOfRange(bytes, position, position + length);
+            position += length;
+            return value;
+        }
+
+        HorrorCharacter readCharacter() throws IOException {
+            return new HorrorCharacter(readString(), readVarint(), readString(), readVarint(), readString());
+        }
+    }
+}
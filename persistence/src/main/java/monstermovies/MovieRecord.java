@@ -0,0 +1,41 @@
+package monstermovies;
+
+/**
+ * A MovieRecord is one row of a SavedMovie file: a single horror character together with
+ * the title and release year of the movie it appears in.
+ * Records are plain values, so they can be filtered, counted or written out again without
+ * building MonsterMovie or HorrorCharacter objects.
+ *
+ * @param title         the title of the movie
+ * @param yearReleased  the year the movie was released
+ * @param name          the name of the character
+ * @param age           the age of the character
+ * @param subtype       the subtype of the character
+ * @param rebirth       the year of rebirth for the character
+ * @param vulnerability the character's vulnerability
+ */
+public record MovieRecord(String title, int yearReleased, String name, int age, String subtype,
+                          int rebirth, String vulnerability) {
+
+    /**
+     * Creates a new HorrorCharacter holding the character fields of this record.
+     *
+     * @return the character described by this record
+     * @throws IllegalArgumentException if the record holds values a HorrorCharacter does not accept
+     */
+    public HorrorCharacter toCharacter() {
+        return new HorrorCharacter(name, age, subtype, rebirth, vulnerability);
+    }
+
+    /**
+     * Returns the record as a line of the SavedMovie format.
+     *
+     * @return the fields of the record separated by " || "
+     */
+    @Override
+    public String toString() {
+        return title + SavedMovieReader.SEPARATOR + yearReleased + SavedMovieReader.SEPARATOR + name +
+                SavedMovieReader.SEPARATOR + age + SavedMovieReader.SEPARATOR + subtype +
+                SavedMovieReader.SEPARATOR + rebirth + SavedMovieReader.SEPARATOR + vulnerability;
+    }
+}
@@ -0,0 +1,213 @@
+package monstermovies;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * ParallelMovieImporter reads a SavedMovie file into a MovieCollection using several threads.
+ *
+ * <p>The file is split into byte ranges that end on the blank lines between movies, so the rows of a
+ * movie normally stay in one range. Each range is read and parsed into movies of its own on a fork-join
+ * pool, merging the rows of each title the way findOrCreateMovie does. The partial movies are then merged
+ * into the collection range by range, in file order, while the later ranges are still being parsed, so the
+ * collection ends up exactly as if the file had been read sequentially with MovieFiles.readFromFile.
+ * Only a few ranges per thread are submitted ahead of the merge, so a large file is never held in memory
+ * all at once.
+ *
+ * <p>The file is decoded as UTF-8, the default charset FileReader uses since Java 18.
+ */
+public final class ParallelMovieImporter {
+
+    /**
+     * The smallest range worth parsing as a task of its own.
+     */
+    private static final long MIN_RANGE_SIZE = 1 << 20;
+
+    /**
+     * The largest range. Together with RANGES_IN_FLIGHT_PER_THREAD it bounds the memory held by the ranges
+     * being parsed or waiting to be merged.
+     */
+    private static final long MAX_RANGE_SIZE = 32 << 20;
+
+    /**
+     * How far to look for a blank line before settling for the end of any line.
+     */
+    private static final long MAX_ALIGNMENT_SCAN = 1 << 20;
+
+    /**
+     * How many ranges to make per thread of the pool, so faster threads can take over the work of slower ones.
+     */
+    private static final int RANGES_PER_THREAD = 4;
+
+    /**
+     * How many ranges per thread of the pool may be parsed or wait to be merged at once, so the threads
+     * keep parsing while the ranges before are merged.
+     */
+    private static final int RANGES_IN_FLIGHT_PER_THREAD = 2;
+
+    private ParallelMovieImporter() {
+    }
+
+    /**
+     * Reads a SavedMovie file into a collection, parsing it on the given pool.
+     * If a range cannot be read or parsed, the ranges before it stay merged and the error is thrown.
+     *
+     * @param collection the collection to add the movies and characters to
+     * @param fileName   the name of the file to read from
+     * @param pool       the pool to parse on
+     * @throws IOException if an I/O error occurs
+     * @throws NumberFormatException if a numeric field of a character line is not a number
+     */
+    public static void importFile(MovieCollection collection, String fileName, ForkJoinPool pool) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+            long[] bounds = split(channel, pool.getParallelism());
+            int inFlight = pool.getParallelism() * RANGES_IN_FLIGHT_PER_THREAD;
+            Deque<ForkJoinTask<Collection<MonsterMovie>>> tasks = new ArrayDeque<>(inFlight);
+            int next = 0;
+            try {
+                while (next + 1 < bounds.length || !tasks.isEmpty()) {
+                    // submit the next ranges before waiting, but never more than inFlight ahead of the merge
+                    while (next + 1 < bounds.length && tasks.size() < inFlight) {
+                        long start = bounds[next];
+                        long end = bounds[next + 1];
+                        tasks.add(pool.submit(() -> parse(channel, start, end)));
+                        next++;
+                    }
+                    for (MonsterMovie movie : tasks.remove().get()) {
+                        collection.mergeMovie(movie);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while importing " + fileName);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof IOException ioException) {
+                    throw ioException;
+                }
+                if (cause instanceof RuntimeException runtimeException) {
+                    throw runtimeException;
+                }
+                if (cause instanceof Error error) {
+                    throw error;
+                }
+                throw new IOException("Error importing " + fileName, cause);
+            } finally {
+                for (ForkJoinTask<Collection<MonsterMovie>> task : tasks) {
+                    task.cancel(false);
+                }
+            }
+        }
+    }
+
+    /**
+     * Splits the file after its two header lines into ranges ending on blank lines.
+     *
+     * @return the bounds of the ranges, range i spanning from bounds[i] up to, not including, bounds[i + 1]
+     */
+    private static long[] split(FileChannel channel, int parallelism) throws IOException {
+        long size = channel.size();
+        long start = skipHeader(channel, size);
+        long rangeSize = Math.clamp((size - start) / ((long) parallelism * RANGES_PER_THREAD),
+                MIN_RANGE_SIZE, MAX_RANGE_SIZE);
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(start);
+        while (start < size) {
+            start = start + rangeSize >= size ? size : alignedEnd(channel, start + rangeSize, size);
+            bounds.add(start);
+        }
+        return bounds.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    /**
+     * Finds the end of the two header lines SavedMovieReader skips.
+     */
+    private static long skipHeader(FileChannel channel, long size) throws IOException {
+        ByteBuffer window = ByteBuffer.allocate(8192);
+        int lines = 0;
+        for (long position = 0; position < size; position += window.position()) {
+            window.clear();
+            if (channel.read(window, position) <= 0) {
+                break;
+            }
+            for (int i = 0; i < window.position(); i++) {
+                if (window.get(i) == '\n' && ++lines == 2) {
+                    return position + i + 1;
+                }
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Finds where the range that should end around a position actually ends: after the next blank line,
+     * or after the next line break if there is no blank line nearby.
+     */
+    private static long alignedEnd(FileChannel channel, long from, long size) throws IOException {
+        ByteBuffer window = ByteBuffer.allocate(64 * 1024);
+        long lineEnd = -1;
+        boolean lineHasContent = true; // the range may end in the middle of a line
+        for (long position = from; position < size; position += window.position()) {
+            window.clear();
+            if (channel.read(window, position) <= 0) {
+                break;
+            }
+            for (int i = 0; i < window.position(); i++) {
+                byte b = window.get(i);
+                if (b == '\n') {
+                    if (!lineHasContent) {
+                        return position + i + 1;
+                    }
+                    if (lineEnd < 0) {
+                        lineEnd = position + i + 1;
+                    }
+                    lineHasContent = false;
+                } else if (b != '\r') {
+                    lineHasContent = true;
+                }
+            }
+            if (lineEnd >= 0 && position + window.position() - from >= MAX_ALIGNMENT_SCAN) {
+                return lineEnd;
+            }
+        }
+        return lineEnd >= 0 ? lineEnd : size;
+    }
+
+    /**
+     * Parses one range of the file into movies, merging the rows of each title into the first movie
+     * with that title in the range.
+     *
+     * @return the movies of the range, in the order their titles first appear
+     */
+    private static Collection<MonsterMovie> parse(FileChannel channel, long start, long end) throws IOException {
+        ByteBuffer bytes = ByteBuffer.allocate((int) (end - start));
+        while (bytes.hasRemaining()) {
+            if (channel.read(bytes, start + bytes.position()) < 0) {
+                break;
+            }
+        }
+        Map<String, MonsterMovie> movies = new LinkedHashMap<>();
+        Reader reader = new InputStreamReader(new ByteArrayInputStream(bytes.array(), 0, bytes.position()),
+                StandardCharsets.UTF_8);
+        try (SavedMovieReader savedMovieReader = new SavedMovieReader(reader, false)) {
+            MovieRecord record;
+            while ((record = savedMovieReader.read()) != null) {
+                MonsterMovie movie = movies.get(MovieCollection.titleKey(record.title()));
+                if (movie == null) {
+                    movie = new MonsterMovie(record.title(), record.yearReleased());
+                    movies.put(MovieCollection.titleKey(record.title()), movie);
+                }
+                movie.addCharacter(record.toCharacter());
+            }
+        }
+        return movies.values();
+    }
+}
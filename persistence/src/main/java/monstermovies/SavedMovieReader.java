@@ -0,0 +1,197 @@
+package monstermovies;
+
+import java.io.*;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * SavedMovieReader streams the rows of a SavedMovie file one MovieRecord at a time.
+ * Only the current line is held in memory, so files larger than the heap can be filtered,
+ * aggregated or re-exported without building a MovieCollection.
+ * Lines are cut at the " || " separators by a hand-written scanner and numbers are parsed in place,
+ * so no regular expression or intermediate field array is created per line.
+ */
+public class SavedMovieReader implements Closeable {
+
+    /**
+     * The separator between the fields of a line.
+     */
+    public static final String SEPARATOR = " || ";
+
+    /**
+     * The reader the lines are read from.
+     */
+    private final BufferedReader reader;
+
+    /**
+     * Whether the two header lines have been skipped yet.
+     */
+    private boolean headerSkipped;
+
+    /**
+     * Constructs a SavedMovieReader reading the SavedMovie format from the given reader.
+     *
+     * @param reader the reader to read lines from (must not be null)
+     */
+    public SavedMovieReader(Reader reader) {
+        this(reader, true);
+    }
+
+    /**
+     * Constructs a SavedMovieReader reading lines of the SavedMovie format from the given reader,
+     * which may start past the header, such as a part of a file read by ParallelMovieImporter.
+     *
+     * @param reader    the reader to read lines from (must not be null)
+     * @param hasHeader whether the reader starts with the two header lines
+     */
+    SavedMovieReader(Reader reader, boolean hasHeader) {
+        Objects.requireNonNull(reader, "Reader cannot be null.");
+        this.reader = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+        this.headerSkipped = !hasHeader;
+    }
+
+    /**
+     * Constructs a SavedMovieReader reading the given SavedMovie file.
+     *
+     * @param fileName the name of the file to read from
+     * @throws IOException if the file cannot be opened
+     */
+    public SavedMovieReader(String fileName) throws IOException {
+        this(new BufferedReader(new FileReader(fileName)));
+    }
+
+    /**
+     * Reads every record of a SavedMovie file and hands it to the given visitor.
+     *
+     * @param fileName the name of the file to read from
+     * @param visitor  called once per record, in file order
+     * @throws IOException if an I/O error occurs
+     */
+    public static void forEach(String fileName, Consumer<? super MovieRecord> visitor) throws IOException {
+        try (SavedMovieReader savedMovieReader = new SavedMovieReader(fileName)) {
+            MovieRecord record;
+            while ((record = savedMovieReader.read()) != null) {
+                visitor.accept(record);
+            }
+        }
+    }
+
+    /**
+     * Reads the next record, skipping the header and any line that is not a character line.
+     *
+     * @return the next record, or null at the end of the input
+     * @throws IOException if an I/O error occurs
+     * @throws NumberFormatException if a numeric field of a character line is not a number
+     */
+    public MovieRecord read() throws IOException {
+        if (!headerSkipped) {
+            reader.readLine();
+            reader.readLine();
+            headerSkipped = true;
+        }
+        String line;
+        while ((line = reader.readLine()) != null) {
+            MovieRecord record = parseLine(line);
+            if (record != null) {
+                return record;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the remaining records as a lazily read stream. Closing the stream closes this reader,
+     * and I/O errors while reading are thrown as UncheckedIOException.
+     *
+     * @return a sequential stream of the remaining records
+     */
+    public Stream<MovieRecord> stream() {
+        Iterator<MovieRecord> iterator = new Iterator<>() {
+            private MovieRecord next;
+
+            @Override
+            public boolean hasNext() {
+                if (next == null) {
+                    try {
+                        next = read();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+                return next != null;
+            }
+
+            @Override
+            public MovieRecord next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                MovieRecord record = next;
+                next = null;
+                return record;
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,
+                        Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(() -> {
+                    try {
+                        close();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+
+    /**
+     * Parses one line of the SavedMovie format.
+     * A character line has exactly seven fields separated by " || " and a non-empty last field;
+     * anything else, such as the blank lines between movies, is not a record.
+     *
+     * @param line the line to parse
+     * @return the parsed record, or null if the line is not a character line
+     * @throws NumberFormatException if a numeric field is not a number
+     */
+    public static MovieRecord parseLine(String line) {
+        int titleEnd = line.indexOf(SEPARATOR);
+        int yearEnd = nextSeparator(line, titleEnd);
+        int nameEnd = nextSeparator(line, yearEnd);
+        int ageEnd = nextSeparator(line, nameEnd);
+        int subtypeEnd = nextSeparator(line, ageEnd);
+        int rebirthEnd = nextSeparator(line, subtypeEnd);
+        if (rebirthEnd < 0 || rebirthEnd + SEPARATOR.length() == line.length()
+                || nextSeparator(line, rebirthEnd) >= 0) {
+            return null;
+        }
+        return new MovieRecord(
+                line.substring(0, titleEnd),
+                Integer.parseInt(line, titleEnd + SEPARATOR.length(), yearEnd, 10),
+                line.substring(yearEnd + SEPARATOR.length(), nameEnd),
+                Integer.parseInt(line, nameEnd + SEPARATOR.length(), ageEnd, 10),
+                line.substring(ageEnd + SEPARATOR.length(), subtypeEnd),
+                Integer.parseInt(line, subtypeEnd + SEPARATOR.length(), rebirthEnd, 10),
+                line.substring(rebirthEnd + SEPARATOR.length()));
+    }
+
+    /**
+     * Finds the separator following the one at the given position.
+     *
+     * @param line     the line to search
+     * @param previous the position of the previous separator, or -1 if there was none
+     * @return the position of the next separator, or -1 if there is none
+     */
+    private static int nextSeparator(String line, int previous) {
+        return previous < 0 ? -1 : line.indexOf(SEPARATOR, previous + SEPARATOR.length());
+    }
+
+    /**
+     * Closes the underlying reader.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}